@@ -5,10 +5,15 @@
 package net.casual.arcade.commands.mixins;
 
 import com.llamalad7.mixinextras.injector.ModifyExpressionValue;
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import net.casual.arcade.commands.manager.CommandTreeSender;
 import net.casual.arcade.commands.type.CustomCommandNodeInspector;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
+import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientboundCommandsPacket;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
 import org.objectweb.asm.Opcodes;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -28,4 +33,22 @@ public class CommandsMixin {
     ) {
         return new CustomCommandNodeInspector(original);
     }
+
+    @WrapOperation(
+        method = "sendCommands",
+        at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/server/network/ServerGamePacketListenerImpl;send(Lnet/minecraft/network/protocol/Packet;)V"
+        )
+    )
+    private void onSendCommandsPacket(
+        ServerGamePacketListenerImpl instance,
+        Packet<?> packet,
+        Operation<Void> original
+    ) {
+        if (packet instanceof ClientboundCommandsPacket commands) {
+            CommandTreeSender.onSendCommands(commands);
+        }
+        original.call(instance, packet);
+    }
 }
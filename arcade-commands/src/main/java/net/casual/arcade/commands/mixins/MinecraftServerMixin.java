@@ -5,6 +5,7 @@
 package net.casual.arcade.commands.mixins;
 
 import net.casual.arcade.commands.hidden.HiddenCommandManager;
+import net.casual.arcade.commands.manager.CommandTreeSender;
 import net.minecraft.server.MinecraftServer;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -19,5 +20,6 @@ public class MinecraftServerMixin {
 	)
 	private void onTick(CallbackInfo ci) {
 		HiddenCommandManager.tick();
+		CommandTreeSender.flush((MinecraftServer) (Object) this);
 	}
 }
@@ -4,11 +4,21 @@
  */
 package net.casual.arcade.commands
 
+import net.casual.arcade.commands.impl.ListenerProfilerCommand
+import net.casual.arcade.commands.manager.CommandTreeSender
 import net.casual.arcade.commands.manager.GlobalCommandManager
+import net.casual.arcade.events.GlobalEventHandler
+import net.casual.arcade.events.ListenerRegistry.Companion.register
+import net.casual.arcade.events.server.ServerRegisterCommandEvent
 import net.fabricmc.api.ModInitializer
 
 public object ArcadeCommands: ModInitializer {
     override fun onInitialize() {
         GlobalCommandManager.registerEvents()
+        CommandTreeSender.registerEvents()
+
+        GlobalEventHandler.Server.register<ServerRegisterCommandEvent> { event ->
+            event.register(ListenerProfilerCommand)
+        }
     }
 }
\ No newline at end of file
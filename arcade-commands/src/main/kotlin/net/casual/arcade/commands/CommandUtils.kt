@@ -22,10 +22,12 @@ import net.casual.arcade.utils.math.location.LocationWithLevel
 import net.casual.arcade.utils.math.location.LocationWithLevel.Companion.asLocation
 import net.casual.arcade.utils.time.MinecraftTimeDuration
 import net.minecraft.commands.CommandSourceStack
+import net.minecraft.commands.Commands
 import net.minecraft.commands.SharedSuggestionProvider
 import net.minecraft.network.chat.Component
 import net.minecraft.network.chat.MutableComponent
 import net.minecraft.server.level.ServerLevel
+import net.minecraft.server.level.ServerPlayer
 import java.util.function.Supplier
 
 public val CommandSourceStack.location: Location
@@ -41,10 +43,25 @@ public fun MutableComponent.singleUseFunction(command: HiddenCommand): MutableCo
     }
 }
 
+public fun MutableComponent.singleUseFunction(owner: ServerPlayer, command: HiddenCommand): MutableComponent {
+    return this.function(owner) { context ->
+        command.run(context)
+        context.remove()
+    }
+}
+
 public fun MutableComponent.function(timeout: MinecraftTimeDuration = 10.Minutes, command: HiddenCommand): MutableComponent {
     return this.command(HiddenCommandManager.register(timeout, command))
 }
 
+public fun MutableComponent.function(
+    owner: ServerPlayer,
+    timeout: MinecraftTimeDuration = 10.Minutes,
+    command: HiddenCommand
+): MutableComponent {
+    return this.command(HiddenCommandManager.register(timeout, owner, command))
+}
+
 public fun CommandSourceStack.success(literal: String, log: Boolean = false): Int {
     return this.success(Component.literal(literal), log)
 }
@@ -132,7 +149,8 @@ public inline fun <reified E: Enum<E>, S, T: ArgumentBuilder<S, T>> ArgumentBuil
 public fun <T: ArgumentBuilder<CommandSourceStack, T>> ArgumentBuilder<CommandSourceStack, T>.requiresPermission(
     permission: Int
 ): T {
-    return this.requires { it.hasPermission(permission) }
+    // Permission checks let command trees be shared, see CommandTreeSender
+    return this.requires(Commands.hasPermission(permission))
 }
 
 public fun <S, T> RequiredArgumentBuilder<S, T>.suggests(
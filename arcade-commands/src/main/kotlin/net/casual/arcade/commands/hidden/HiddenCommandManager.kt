@@ -5,45 +5,141 @@
 package net.casual.arcade.commands.hidden
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.longs.LongArrayList
 import net.casual.arcade.utils.time.MinecraftTimeDuration
 import net.minecraft.server.level.ServerPlayer
 import org.jetbrains.annotations.ApiStatus.Internal
+import java.security.SecureRandom
 import java.util.*
 
+/**
+ * This object manages hidden commands, these are commands
+ * which are not part of the command tree, and are typically
+ * used as callbacks for clickable components.
+ *
+ * Each hidden command is stored under a random 64-bit key
+ * and expires after its timeout, expired commands are removed
+ * in buckets, each tick only the bucket for the current tick
+ * is processed.
+ *
+ * Hidden commands may optionally be scoped to a player, in
+ * which case only that player may run the command.
+ */
 public object HiddenCommandManager {
     private const val ROOT = "~arcade\$hidden\$command"
+    private const val PREFIX = "$ROOT "
+
+    private val random = SecureRandom()
 
-    private val commands = Object2ObjectOpenHashMap<String, HiddenCommand>()
+    private val commands = Long2ObjectOpenHashMap<Entry>()
 
-    private val deletion = Int2ObjectOpenHashMap<ArrayList<String>>()
+    private val deletion = Int2ObjectOpenHashMap<LongArrayList>()
     private var ticks = 0
 
+    private var registered = 0L
+    private var expired = 0L
+
+    /**
+     * The number of hidden commands which are currently registered.
+     */
+    @JvmStatic
+    public val liveCount: Int
+        get() = this.commands.size
+
+    /**
+     * The total number of hidden commands which have been registered.
+     */
+    @JvmStatic
+    public val registeredCount: Long
+        get() = this.registered
+
+    /**
+     * The total number of hidden commands which have expired
+     * before they were removed.
+     */
+    @JvmStatic
+    public val expiredCount: Long
+        get() = this.expired
+
+    /**
+     * Registers a hidden command which may be run by any player.
+     *
+     * @param timeout The duration after which the command expires.
+     * @param command The command to run.
+     * @return The command string, including the leading slash.
+     */
+    @JvmStatic
     public fun register(timeout: MinecraftTimeDuration, command: HiddenCommand): String {
-        val name = "$ROOT ${UUID.randomUUID()}"
-        this.commands[name] = command
-        this.deletion[this.ticks + timeout.ticks]
-        return "/$name"
+        return this.register(timeout, null, command)
+    }
+
+    /**
+     * Registers a hidden command which may only be run by the given [owner].
+     *
+     * @param timeout The duration after which the command expires.
+     * @param owner The only player that may run the command, `null` for any player.
+     * @param command The command to run.
+     * @return The command string, including the leading slash.
+     */
+    @JvmStatic
+    public fun register(timeout: MinecraftTimeDuration, owner: ServerPlayer?, command: HiddenCommand): String {
+        var key = this.random.nextLong()
+        while (this.commands.containsKey(key)) {
+            key = this.random.nextLong()
+        }
+
+        val expiry = this.ticks + timeout.ticks.coerceAtLeast(1)
+        this.commands.put(key, Entry(command, owner?.uuid, expiry))
+        var bucket = this.deletion.get(expiry)
+        if (bucket == null) {
+            bucket = LongArrayList()
+            this.deletion.put(expiry, bucket)
+        }
+        bucket.add(key)
+        this.registered++
+        return "/$PREFIX${key.toULong().toString(36)}"
     }
 
     @Internal
     @JvmStatic
     public fun tick() {
-        val commands = this.deletion[this.ticks++] ?: return
-        for (command in commands) {
-            this.commands.remove(command)
+        val bucket = this.deletion.remove(++this.ticks) ?: return
+        for (i in 0 until bucket.size) {
+            val key = bucket.getLong(i)
+            // The command may have been removed early,
+            // and the key may have been re-used since
+            val entry = this.commands.get(key)
+            if (entry != null && entry.expiry == this.ticks) {
+                this.commands.remove(key)
+                this.expired++
+            }
         }
     }
 
     @Internal
     @JvmStatic
     public fun onCommand(player: ServerPlayer, name: String): Boolean {
-        val command = this.commands[name] ?: return false
+        if (!name.startsWith(PREFIX)) {
+            return false
+        }
+        val key = name.substring(PREFIX.length).toULongOrNull(36)?.toLong() ?: return false
+        val entry = this.commands.get(key) ?: return false
+        if (entry.owner != null && entry.owner != player.uuid) {
+            return false
+        }
+
         val context = HiddenCommandContext(player)
-        command.run(context)
+        entry.command.run(context)
         if (context.removed()) {
-            this.commands.remove(name)
+            this.commands.remove(key)
         }
         return true
     }
-}
\ No newline at end of file
+
+    private class Entry(
+        val command: HiddenCommand,
+        val owner: UUID?,
+        val expiry: Int
+    )
+}
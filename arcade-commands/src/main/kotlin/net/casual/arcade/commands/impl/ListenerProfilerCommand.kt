@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.commands.impl
+
+import com.mojang.brigadier.arguments.IntegerArgumentType
+import com.mojang.brigadier.builder.LiteralArgumentBuilder
+import com.mojang.brigadier.context.CommandContext
+import net.casual.arcade.commands.*
+import net.casual.arcade.events.EventLanes
+import net.casual.arcade.events.profiling.ListenerProfiler
+import net.casual.arcade.utils.ArcadeUtils
+import net.minecraft.commands.CommandBuildContext
+import net.minecraft.commands.CommandSourceStack
+import java.time.LocalDateTime
+import java.time.format.DateTimeFormatter
+import java.util.*
+
+internal object ListenerProfilerCommand: CommandTree {
+    private val FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss", Locale.ROOT)
+
+    override fun create(buildContext: CommandBuildContext): LiteralArgumentBuilder<CommandSourceStack> {
+        return CommandTree.buildLiteral("listener-profiler") {
+            requiresPermission(4)
+
+            literal("start") {
+                executes(::startProfiler)
+            }
+            literal("stop") {
+                executes(::stopProfiler)
+            }
+            literal("reset") {
+                executes(::resetProfiler)
+            }
+            literal("top") {
+                executes { listTopListeners(it, 10) }
+                argument("count", IntegerArgumentType.integer(1, 100)) {
+                    executes { listTopListeners(it, IntegerArgumentType.getInteger(it, "count")) }
+                }
+            }
+            literal("dump") {
+                executes(::dumpProfiler)
+            }
+            literal("lanes") {
+                executes(::listLanes)
+            }
+        }
+    }
+
+    private fun startProfiler(context: CommandContext<CommandSourceStack>): Int {
+        if (ListenerProfiler.enabled) {
+            return context.source.fail("Listener profiler is already running")
+        }
+        ListenerProfiler.start()
+        return context.source.success("Started listener profiler", true)
+    }
+
+    private fun stopProfiler(context: CommandContext<CommandSourceStack>): Int {
+        if (!ListenerProfiler.enabled) {
+            return context.source.fail("Listener profiler is not running")
+        }
+        ListenerProfiler.stop()
+        return context.source.success("Stopped listener profiler", true)
+    }
+
+    private fun resetProfiler(context: CommandContext<CommandSourceStack>): Int {
+        ListenerProfiler.reset()
+        return context.source.success("Reset listener profiler statistics", true)
+    }
+
+    private fun listTopListeners(context: CommandContext<CommandSourceStack>, count: Int): Int {
+        val statistics = ListenerProfiler.getStatistics()
+        if (statistics.isEmpty()) {
+            return context.source.fail("No listener statistics have been recorded")
+        }
+        val lines = statistics.take(count).mapIndexed { index, entry ->
+            "%d. %s (%s) in %s: %d calls, %.3fms total, %.3fms self, %.1fus max".format(
+                Locale.ROOT,
+                index + 1,
+                entry.listener,
+                entry.owner,
+                entry.type.simpleName,
+                entry.count,
+                entry.totalNanos / 1_000_000.0,
+                entry.selfNanos / 1_000_000.0,
+                entry.maxNanos / 1_000.0
+            )
+        }
+        return context.source.success(lines.joinToString("\n"))
+    }
+
+    private fun listLanes(context: CommandContext<CommandSourceStack>): Int {
+        val statistics = EventLanes.getStatistics()
+        if (statistics.isEmpty()) {
+            return context.source.fail("No event lanes have been used")
+        }
+        val lines = statistics.map { lane ->
+            "%s: %d/%d queued (max %d), %d submitted, %d completed, %d failed, %d rejected".format(
+                Locale.ROOT,
+                lane.lane,
+                lane.queued,
+                lane.capacity,
+                lane.maxQueued,
+                lane.submitted,
+                lane.completed,
+                lane.failed,
+                lane.rejected
+            )
+        }
+        return context.source.success(lines.joinToString("\n"))
+    }
+
+    private fun dumpProfiler(context: CommandContext<CommandSourceStack>): Int {
+        val name = "listeners-${LocalDateTime.now().format(FORMATTER)}.tsv"
+        val path = ArcadeUtils.path.resolve("profiling").resolve(name)
+        try {
+            ListenerProfiler.dump(path)
+        } catch (e: Exception) {
+            ArcadeUtils.logger.error("Failed to dump listener profiler statistics", e)
+            return context.source.fail("Failed to dump listener profiler statistics")
+        }
+        return context.source.success("Dumped listener profiler statistics to $path", true)
+    }
+}
@@ -21,6 +21,7 @@ public class CommandManager(
     private val server: MinecraftServer
 ): CommandRegistry {
     private val dispatcher = CommandDispatcher<CommandSourceStack>()
+    private var shareable = true
 
     override fun register(literal: LiteralArgumentBuilder<CommandSourceStack>) {
         this.dispatcher.register(literal)
@@ -45,13 +46,15 @@ public class CommandManager(
     }
 
     private fun resendCommands() {
-        for (player in this.server.playerList.players) {
-            this.server.commands.sendCommands(player)
-        }
+        this.shareable = !CommandTreeSender.hasPlayerSpecificRequirements(this.dispatcher.root)
+        CommandTreeSender.resendAll()
     }
 
     private fun onPlayerSendCommands(event: PlayerSendCommandsEvent) {
         event.addCustomCommandNode(this.dispatcher.root)
+        if (!this.shareable) {
+            event.preventSharing()
+        }
     }
 
     private fun onPlayerCommand(event: PlayerCommandEvent) {
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.commands.manager
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder
+import com.mojang.brigadier.tree.CommandNode
+import com.mojang.brigadier.tree.RootCommandNode
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet
+import net.casual.arcade.events.GlobalEventHandler
+import net.casual.arcade.events.ListenerRegistry.Companion.register
+import net.casual.arcade.events.server.player.PlayerSendCommandsEvent
+import net.casual.arcade.utils.PlayerUtils.levelServer
+import net.fabricmc.loader.api.FabricLoader
+import net.minecraft.commands.CommandSourceStack
+import net.minecraft.commands.PermissionCheck
+import net.minecraft.network.protocol.game.ClientboundCommandsPacket
+import net.minecraft.server.MinecraftServer
+import net.minecraft.server.level.ServerPlayer
+import org.jetbrains.annotations.ApiStatus.Internal
+import java.util.*
+import java.util.function.Predicate
+
+/**
+ * This object coalesces command tree resends.
+ *
+ * Instead of rebuilding and sending the command tree
+ * every time a command is registered or removed, players
+ * are marked dirty and their trees are resent once, at the
+ * end of the server tick.
+ *
+ * When flushing, players whose command trees would be identical
+ * share a single [ClientboundCommandsPacket]. Two trees are
+ * considered identical if the players have the same permission
+ * level, the same custom command nodes, and the same cache keys,
+ * see [PlayerSendCommandsEvent.addCacheKey].
+ */
+public object CommandTreeSender {
+    private val pending = ObjectOpenHashSet<UUID>()
+    private var all = false
+
+    private val packets = Object2ObjectOpenHashMap<TreeKey, ClientboundCommandsPacket>()
+    private var flushing = false
+    private var missed: TreeKey? = null
+
+    // The vanilla dispatcher is only rebuilt when commands are reloaded
+    private var vanillaRoot: RootCommandNode<CommandSourceStack>? = null
+    private var vanillaShareable = false
+
+    // Brigadier shares a single requirement instance for nodes with no requirement
+    private val defaultRequirement = LiteralArgumentBuilder.literal<CommandSourceStack>("").requirement
+
+    /**
+     * Whether players with identical command trees should share
+     * the same packet.
+     *
+     * This assumes that command requirements only depend on the
+     * player's permission level and the cache keys provided in
+     * [PlayerSendCommandsEvent], custom command nodes with other
+     * requirements must call [PlayerSendCommandsEvent.preventSharing],
+     * see [hasPlayerSpecificRequirements].
+     * Trees are also never shared if the server's own dispatcher
+     * has any player specific requirements.
+     * This isn't the case when using a permissions mod, so this
+     * is disabled by default if the fabric permissions api is present.
+     */
+    @JvmStatic
+    public var shareTrees: Boolean = !FabricLoader.getInstance().isModLoaded("fabric-permissions-api-v0")
+
+    /**
+     * Marks a player's command tree as dirty, their
+     * command tree will be resent at the end of the tick.
+     *
+     * @param player The player to resend the commands to.
+     */
+    @JvmStatic
+    public fun resend(player: ServerPlayer) {
+        if (!this.all) {
+            this.pending.add(player.uuid)
+        }
+    }
+
+    /**
+     * Marks every player's command tree as dirty, all
+     * command trees will be resent at the end of the tick.
+     */
+    @JvmStatic
+    public fun resendAll() {
+        this.all = true
+        this.pending.clear()
+    }
+
+    /**
+     * Checks whether any node in the given tree has a requirement
+     * which isn't solely a permission level check.
+     *
+     * Trees with such requirements may differ between players
+     * with the same permission level and so must not be shared.
+     *
+     * Requirements which only depend on state that is already part
+     * of a cache key, see [PlayerSendCommandsEvent.addCacheKey],
+     * may be excluded with the [covered] predicate.
+     *
+     * @param root The root of the command tree.
+     * @param covered Whether a requirement is covered by a cache key.
+     * @return Whether the tree has any player specific requirements.
+     */
+    @JvmStatic
+    @JvmOverloads
+    public fun hasPlayerSpecificRequirements(
+        root: CommandNode<CommandSourceStack>,
+        covered: Predicate<Predicate<CommandSourceStack>> = Predicate { false }
+    ): Boolean {
+        val nodes = ArrayDeque<CommandNode<CommandSourceStack>>()
+        nodes.addAll(root.children)
+        while (nodes.isNotEmpty()) {
+            val node = nodes.removeFirst()
+            val requirement = node.requirement
+            if (requirement !== this.defaultRequirement && requirement !is PermissionCheck<*> && !covered.test(requirement)) {
+                return true
+            }
+            nodes.addAll(node.children)
+        }
+        return false
+    }
+
+    @Internal
+    @JvmStatic
+    public fun flush(server: MinecraftServer) {
+        if (!this.all && this.pending.isEmpty()) {
+            return
+        }
+
+        val players = if (this.all) {
+            ArrayList(server.playerList.players)
+        } else {
+            this.pending.mapNotNull { server.playerList.getPlayer(it) }
+        }
+        this.all = false
+        this.pending.clear()
+
+        this.flushing = this.shareTrees && this.isVanillaShareable(server)
+        try {
+            for (player in players) {
+                server.commands.sendCommands(player)
+                this.missed = null
+            }
+        } finally {
+            this.flushing = false
+            this.missed = null
+            this.packets.clear()
+        }
+    }
+
+    @Internal
+    @JvmStatic
+    public fun onSendCommands(packet: ClientboundCommandsPacket) {
+        val missed = this.missed
+        if (this.flushing && missed != null) {
+            this.packets[missed] = packet
+            this.missed = null
+        }
+    }
+
+    private fun isVanillaShareable(server: MinecraftServer): Boolean {
+        val root = server.commands.dispatcher.root
+        if (this.vanillaRoot !== root) {
+            this.vanillaRoot = root
+            this.vanillaShareable = !this.hasPlayerSpecificRequirements(root)
+        }
+        return this.vanillaShareable
+    }
+
+    internal fun registerEvents() {
+        // This must be the last listener so all nodes and keys have been added
+        GlobalEventHandler.Server.register<PlayerSendCommandsEvent>(Int.MAX_VALUE) { event ->
+            this.onPlayerSendCommands(event)
+        }
+    }
+
+    private fun onPlayerSendCommands(event: PlayerSendCommandsEvent) {
+        if (!this.flushing || !event.isShareable()) {
+            return
+        }
+        val player = event.player
+        val permissions = player.levelServer.getProfilePermissions(player.gameProfile)
+        val key = TreeKey(permissions, ArrayList(event.getCustomCommandNodes()), ArrayList(event.getCacheKeys()))
+        val cached = this.packets[key]
+        if (cached != null) {
+            event.sharedPacket = cached
+        } else {
+            this.missed = key
+        }
+    }
+
+    private class TreeKey(
+        private val permissions: Int,
+        private val nodes: List<RootCommandNode<CommandSourceStack>>,
+        private val keys: List<Any>
+    ) {
+        // Command nodes are compared by identity, their equals
+        // implementation compares the entire subtree.
+        private val hash = Objects.hash(this.permissions, this.keys) * 31 + this.nodes.sumOf { System.identityHashCode(it) }
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) {
+                return true
+            }
+            if (other !is TreeKey || this.hash != other.hash) {
+                return false
+            }
+            if (this.permissions != other.permissions || this.nodes.size != other.nodes.size) {
+                return false
+            }
+            for (i in this.nodes.indices) {
+                if (this.nodes[i] !== other.nodes[i]) {
+                    return false
+                }
+            }
+            return this.keys == other.keys
+        }
+
+        override fun hashCode(): Int {
+            return this.hash
+        }
+    }
+}
@@ -38,7 +38,7 @@ public object GlobalCommandManager: CommandRegistry {
 
     public fun addManager(manager: CommandManager) {
         if (!this.managers.containsKey(manager)) {
-            val registry = SimpleListenerRegistry()
+            val registry = SimpleListenerRegistry(manager)
             GlobalEventHandler.Server.addProvider(registry)
             this.managers[manager] = registry
             manager.initialize(registry)
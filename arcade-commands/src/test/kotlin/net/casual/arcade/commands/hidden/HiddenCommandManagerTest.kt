@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.commands.hidden
+
+import net.casual.arcade.utils.TimeUtils.Ticks
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class HiddenCommandManagerTest {
+    @Test
+    fun `expires a million hidden commands`() {
+        val command = HiddenCommand { }
+        val registered = HiddenCommandManager.registeredCount
+        val expired = HiddenCommandManager.expiredCount
+        val live = HiddenCommandManager.liveCount
+
+        // Only the commands registered within the timeout may be alive at once
+        var peak = 0
+        for (tick in 0 ..< TICKS) {
+            for (i in 0 ..< PER_TICK) {
+                HiddenCommandManager.register(TIMEOUT.Ticks, command)
+            }
+            peak = maxOf(peak, HiddenCommandManager.liveCount - live)
+            HiddenCommandManager.tick()
+        }
+        assertTrue(peak <= PER_TICK * TIMEOUT, "Expected at most ${PER_TICK * TIMEOUT} live commands, got $peak")
+
+        for (tick in 0 ..< TIMEOUT) {
+            HiddenCommandManager.tick()
+        }
+        assertEquals(live, HiddenCommandManager.liveCount)
+        assertEquals(PER_TICK.toLong() * TICKS, HiddenCommandManager.registeredCount - registered)
+        assertEquals(PER_TICK.toLong() * TICKS, HiddenCommandManager.expiredCount - expired)
+    }
+
+    @Test
+    fun `keeps commands until they time out`() {
+        val live = HiddenCommandManager.liveCount
+        HiddenCommandManager.register(TIMEOUT.Ticks) { }
+        for (tick in 1 ..< TIMEOUT) {
+            HiddenCommandManager.tick()
+            assertEquals(live + 1, HiddenCommandManager.liveCount)
+        }
+        HiddenCommandManager.tick()
+        assertEquals(live, HiddenCommandManager.liveCount)
+    }
+
+    private companion object {
+        const val TICKS = 10_000
+        const val PER_TICK = 100
+        const val TIMEOUT = 20
+    }
+}
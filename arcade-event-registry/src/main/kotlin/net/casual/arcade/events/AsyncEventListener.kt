@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events
+
+import net.casual.arcade.events.common.Event
+import java.util.function.Consumer
+import java.util.function.Function
+
+/**
+ * An [EventListener] which handles events off-thread in an [EventLanes] lane.
+ *
+ * When the event is broadcast, [prepare] is invoked on the broadcasting
+ * thread, this should capture everything that the listener needs from
+ * the event, as the event may be mutated, or re-used, once the broadcast
+ * has finished.
+ * The returned task is then run on the listener's [lane], tasks
+ * within the same lane are run in the order they were broadcast.
+ *
+ * This is useful for listeners that are thread-safe and don't need to
+ * run on the main thread, for example, logging, analytics, or persistence.
+ *
+ * @param T The type of event.
+ * @see EventLanes
+ */
+public abstract class AsyncEventListener<T: Event>(
+    /**
+     * The lane that the listener is run in.
+     */
+    public val lane: String,
+    override val priority: Int = 1_000,
+    override val phase: String = BuiltInEventPhases.DEFAULT
+): EventListener<T> {
+    final override val requiresMainThread: Boolean
+        get() = false
+
+    final override fun invoke(event: T) {
+        EventLanes.submit(this.lane, this.prepare(event))
+    }
+
+    /**
+     * Prepares the task to run in the lane for the given [event].
+     *
+     * This is invoked on the broadcasting thread.
+     *
+     * @param event The event being broadcast.
+     * @return The task to run in the lane.
+     */
+    protected abstract fun prepare(event: T): Runnable
+
+    override fun toString(): String {
+        return "AsyncEventListener(lane=${this.lane})"
+    }
+
+    public companion object {
+        /**
+         * Creates a new [AsyncEventListener] which takes a snapshot
+         * of the event and then handles the snapshot in the given [lane].
+         *
+         * @param T The type of event.
+         * @param S The type of snapshot.
+         * @param lane The lane to handle the event in.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param snapshot The function to take an immutable snapshot of the event.
+         * @param listener The callback which will be invoked in the lane.
+         * @return The created listener.
+         */
+        public fun <T: Event, S> of(
+            lane: String,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            snapshot: Function<T, S>,
+            listener: Consumer<S>
+        ): AsyncEventListener<T> {
+            return object: AsyncEventListener<T>(lane, priority, phase) {
+                override fun prepare(event: T): Runnable {
+                    val captured = snapshot.apply(event)
+                    return Runnable { listener.accept(captured) }
+                }
+
+                override fun toString(): String {
+                    return "AsyncEventListener(lane=${this.lane}, listener=${listener.javaClass.name})"
+                }
+            }
+        }
+    }
+}
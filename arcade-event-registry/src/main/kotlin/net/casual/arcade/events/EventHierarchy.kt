@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events
+
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet
+import net.casual.arcade.events.common.Event
+
+/**
+ * Caches the event types that an event class may be
+ * dispatched as, used for polymorphic listeners.
+ *
+ * @see ListenerRegistry.registerPolymorphic
+ */
+internal object EventHierarchy {
+    private val hierarchies = object: ClassValue<Array<Class<out Event>>>() {
+        override fun computeValue(type: Class<*>): Array<Class<out Event>> {
+            return computeHierarchy(type)
+        }
+    }
+
+    /**
+     * Gets the given [type] followed by all of its superclasses
+     * and interfaces that are also [Event]s, most specific first.
+     *
+     * @param type The event type.
+     * @return The event types that the [type] is assignable to.
+     */
+    fun get(type: Class<out Event>): Array<Class<out Event>> {
+        return this.hierarchies.get(type)
+    }
+
+    private fun computeHierarchy(type: Class<*>): Array<Class<out Event>> {
+        val hierarchy = ReferenceLinkedOpenHashSet<Class<*>>()
+        val queue = ArrayDeque<Class<*>>()
+        queue.add(type)
+        while (queue.isNotEmpty()) {
+            val current = queue.removeFirst()
+            if (!Event::class.java.isAssignableFrom(current) || !hierarchy.add(current)) {
+                continue
+            }
+            val superclass = current.superclass
+            if (superclass != null) {
+                queue.add(superclass)
+            }
+            queue.addAll(current.interfaces)
+        }
+        @Suppress("UNCHECKED_CAST")
+        return hierarchy.toTypedArray() as Array<Class<out Event>>
+    }
+}
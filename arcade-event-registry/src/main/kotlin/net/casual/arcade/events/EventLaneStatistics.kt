@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events
+
+/**
+ * A snapshot of the statistics of an [EventLanes] lane.
+ *
+ * @see EventLanes.getStatistics
+ */
+public data class EventLaneStatistics(
+    /**
+     * The name of the lane.
+     */
+    val lane: String,
+    /**
+     * The maximum number of tasks that may be queued.
+     */
+    val capacity: Int,
+    /**
+     * The number of tasks currently queued.
+     */
+    val queued: Int,
+    /**
+     * The maximum number of tasks that have been queued at once.
+     */
+    val maxQueued: Int,
+    /**
+     * The number of tasks submitted to the lane.
+     */
+    val submitted: Long,
+    /**
+     * The number of tasks that have been run.
+     */
+    val completed: Long,
+    /**
+     * The number of tasks that threw an exception.
+     */
+    val failed: Long,
+    /**
+     * The number of tasks that were rejected because the lane was full.
+     */
+    val rejected: Long
+)
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events
+
+import org.apache.logging.log4j.LogManager
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The async dispatch lanes for [AsyncEventListener]s.
+ *
+ * Each lane is a queue of tasks which are run in order, one at a time,
+ * on a bounded pool of worker threads shared between all lanes.
+ * Different lanes may run concurrently.
+ *
+ * Lanes are bounded, see [setCapacity], if a lane is full then any
+ * further tasks are rejected, and counted, until the lane catches up,
+ * this prevents slow listeners from exhausting memory.
+ *
+ * @see AsyncEventListener
+ * @see GlobalEventHandler
+ */
+public object EventLanes {
+    private const val DEFAULT_CAPACITY = 8_192
+    private const val MAX_BATCH = 256
+    private const val REJECTION_LOG_INTERVAL = 1_000L
+
+    private val logger = LogManager.getLogger("ArcadeEventLanes")
+
+    private val lanes = ConcurrentHashMap<String, Lane>()
+
+    private val workers by lazy {
+        val threads = (Runtime.getRuntime().availableProcessors() / 2).coerceIn(1, 4)
+        val executor = ThreadPoolExecutor(
+            threads, threads, 30, TimeUnit.SECONDS, LinkedBlockingQueue(), LaneThreadFactory()
+        )
+        executor.allowCoreThreadTimeOut(true)
+        executor
+    }
+
+    /**
+     * Sets the maximum number of queued tasks for the given [lane].
+     *
+     * @param lane The name of the lane.
+     * @param capacity The maximum number of queued tasks.
+     */
+    public fun setCapacity(lane: String, capacity: Int) {
+        require(capacity > 0) { "Lane capacity must be positive" }
+        this.getLane(lane).capacity = capacity
+    }
+
+    /**
+     * Submits a task to the given [lane].
+     *
+     * @param lane The name of the lane.
+     * @param task The task to run.
+     * @return Whether the task was queued, `false` if the lane was full.
+     */
+    public fun submit(lane: String, task: Runnable): Boolean {
+        return this.getLane(lane).submit(task)
+    }
+
+    /**
+     * Gets the statistics of all the lanes.
+     *
+     * @return The statistics of the lanes.
+     */
+    public fun getStatistics(): List<EventLaneStatistics> {
+        return this.lanes.values.map { it.statistics() }.sortedBy { it.lane }
+    }
+
+    /**
+     * Waits for all the lanes to finish running their queued tasks.
+     *
+     * @param timeout The maximum time to wait.
+     * @return Whether all the lanes are idle.
+     */
+    @JvmStatic
+    public fun awaitIdle(timeout: Duration): Boolean {
+        val deadline = System.nanoTime() + timeout.toNanos()
+        while (this.lanes.values.any { !it.isIdle() }) {
+            if (System.nanoTime() >= deadline) {
+                return false
+            }
+            Thread.sleep(5)
+        }
+        return true
+    }
+
+    private fun getLane(name: String): Lane {
+        return this.lanes.computeIfAbsent(name, ::Lane)
+    }
+
+    private class Lane(val name: String): Runnable {
+        private val queue = ConcurrentLinkedQueue<Runnable>()
+        private val size = AtomicInteger()
+        private val scheduled = AtomicBoolean()
+
+        private val maxQueued = AtomicInteger()
+        private val submitted = AtomicLong()
+        private val completed = AtomicLong()
+        private val failed = AtomicLong()
+        private val rejected = AtomicLong()
+
+        @Volatile
+        var capacity = DEFAULT_CAPACITY
+
+        fun submit(task: Runnable): Boolean {
+            val queued = this.size.incrementAndGet()
+            if (queued > this.capacity) {
+                this.size.decrementAndGet()
+                val rejected = this.rejected.incrementAndGet()
+                if (rejected % REJECTION_LOG_INTERVAL == 1L) {
+                    logger.warn("Event lane '{}' is full, rejected {} tasks so far", this.name, rejected)
+                }
+                return false
+            }
+            this.queue.add(task)
+            this.submitted.incrementAndGet()
+            this.maxQueued.accumulateAndGet(queued) { a, b -> maxOf(a, b) }
+            this.schedule()
+            return true
+        }
+
+        fun isIdle(): Boolean {
+            return this.size.get() == 0 && !this.scheduled.get()
+        }
+
+        fun statistics(): EventLaneStatistics {
+            return EventLaneStatistics(
+                this.name,
+                this.capacity,
+                this.size.get(),
+                this.maxQueued.get(),
+                this.submitted.get(),
+                this.completed.get(),
+                this.failed.get(),
+                this.rejected.get()
+            )
+        }
+
+        override fun run() {
+            // We only run a batch at a time so lanes share the workers fairly
+            var processed = 0
+            while (processed < MAX_BATCH) {
+                val task = this.queue.poll() ?: break
+                this.size.decrementAndGet()
+                try {
+                    task.run()
+                } catch (e: Throwable) {
+                    // Errors must not escape, otherwise the lane would never be rescheduled
+                    this.failed.incrementAndGet()
+                    logger.error("Event lane '{}' task failed", this.name, e)
+                }
+                this.completed.incrementAndGet()
+                processed++
+            }
+            this.scheduled.set(false)
+            // A task may have been added after we stopped polling
+            if (!this.queue.isEmpty()) {
+                this.schedule()
+            }
+        }
+
+        private fun schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                workers.execute(this)
+            }
+        }
+    }
+
+    private class LaneThreadFactory: ThreadFactory {
+        private val count = AtomicInteger()
+
+        override fun newThread(runnable: Runnable): Thread {
+            val thread = Thread(runnable, "Arcade-Event-Lane-${this.count.incrementAndGet()}")
+            thread.isDaemon = true
+            return thread
+        }
+    }
+}
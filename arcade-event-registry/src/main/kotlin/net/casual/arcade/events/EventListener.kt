@@ -5,6 +5,7 @@
 package net.casual.arcade.events
 
 import net.casual.arcade.events.common.Event
+import net.casual.arcade.events.common.KeyedEvent
 import org.jetbrains.annotations.ApiStatus.NonExtendable
 import java.util.function.Consumer
 
@@ -41,8 +42,32 @@ public fun interface EventListener<T: Event>: Comparable<EventListener<T>> {
     public val requiresMainThread: Boolean
         get() = true
 
+    /**
+     * The keys of the [KeyedEvent]s that this listener is interested in.
+     *
+     * If this is `null` the listener will be invoked for all keys,
+     * otherwise it will only be invoked for events whose key is
+     * assignable to one of these keys.
+     * This has no effect on events that aren't [KeyedEvent]s.
+     */
+    public val keys: Collection<Class<*>>?
+        get() = null
+
     public fun invoke(event: T)
 
+    /**
+     * Checks whether this listener should be invoked
+     * for a [KeyedEvent] with the given [key].
+     *
+     * @param key The key of the event.
+     * @return Whether the listener accepts the key.
+     */
+    @NonExtendable
+    public fun acceptsKey(key: Class<*>): Boolean {
+        val keys = this.keys ?: return true
+        return keys.any { it.isAssignableFrom(key) }
+    }
+
     @NonExtendable
     override operator fun compareTo(other: EventListener<T>): Int {
         return this.priority.compareTo(other.priority)
@@ -52,11 +77,16 @@ public fun interface EventListener<T: Event>: Comparable<EventListener<T>> {
         override val priority: Int,
         override val phase: String,
         override val requiresMainThread: Boolean,
+        override val keys: Collection<Class<*>>?,
         private val listener: Consumer<T>
     ): EventListener<T> {
         override fun invoke(event: T) {
             this.listener.accept(event)
         }
+
+        override fun toString(): String {
+            return this.listener.javaClass.name
+        }
     }
 
     public companion object {
@@ -75,7 +105,29 @@ public fun interface EventListener<T: Event>: Comparable<EventListener<T>> {
             requiresMainThread: Boolean = true,
             listener: Consumer<T>
         ): EventListener<T> {
-            return Impl(priority, phase, requiresMainThread, listener)
+            return Impl(priority, phase, requiresMainThread, null, listener)
+        }
+
+        /**
+         * Creates a new [EventListener] for the given [KeyedEvent] type
+         * which is only invoked for events with the given [keys].
+         *
+         * @param T The type of event.
+         * @param keys The keys that the listener is interested in.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         * @return A new [EventListener] for the given event type.
+         * @see EventListener.keys
+         */
+        public fun <T: KeyedEvent> keyed(
+            keys: Collection<Class<*>>,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: Consumer<T>
+        ): EventListener<T> {
+            return Impl(priority, phase, requiresMainThread, keys.toSet(), listener)
         }
     }
 }
\ No newline at end of file
@@ -7,33 +7,49 @@ package net.casual.arcade.events
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet
 import it.unimi.dsi.fastutil.objects.ObjectSets
 import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMaps
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap
 import net.casual.arcade.events.common.Event
+import net.casual.arcade.events.common.KeyedEvent
 import net.casual.arcade.events.common.MissingExecutorEvent
+import net.casual.arcade.events.profiling.ListenerProfiler
 import net.casual.arcade.utils.ServerUtils
 import net.casual.arcade.utils.addSorted
 import net.minecraft.client.Minecraft
 import net.minecraft.util.thread.ReentrantBlockableEventLoop
 import org.apache.logging.log4j.LogManager
+import org.jetbrains.annotations.ApiStatus.Internal
 import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Consumer
 
 /**
  * Object class that is responsible for broadcasting
  * events and announcing events to registered listeners.
  *
+ * Listeners that don't need to run on the main thread may
+ * instead be run off-thread, see [AsyncEventListener].
+ *
  * @see broadcast
  * @see addProvider
  * @see Event
+ * @see EventLanes
  */
 public enum class GlobalEventHandler(
     private val executor: () -> ReentrantBlockableEventLoop<*>?
-): ListenerRegistry by SimpleListenerRegistry() {
+): ListenerRegistry by SimpleListenerRegistry("global") {
     Server(ServerUtils::getServerOrNull),
     Client({ Minecraft.getInstance() });
 
     private val stack = ThreadLocal.withInitial { Reference2IntOpenHashMap<Class<out Event>>() }
     private val registries = ObjectSets.synchronize(ObjectOpenHashSet<ListenerProvider>())
 
-    private val injected = ObjectSets.synchronize(ObjectOpenHashSet<InjectedListenerProvider>())
+    @Volatile
+    private var injected = arrayOf<InjectedListenerProvider>()
+
+    @Volatile
+    private var chains = DispatchCache.EMPTY
 
     private var recursion = ThreadLocal.withInitial { false }
 
@@ -58,6 +74,10 @@ public enum class GlobalEventHandler(
      * be invoked, the reasoning for this is because we
      * cannot guarantee priority preservation.
      *
+     * If the event is a [KeyedEvent] then only listeners that
+     * accept its key will be invoked, see [EventListener.keys]
+     * and [KeyedEvent.keyedListenersOnly].
+     *
      * @param T The type of event.
      * @param event The event that is being fired.
      * @param phases The phases of the event that should be invoked.
@@ -73,33 +93,29 @@ public enum class GlobalEventHandler(
             return
         }
 
-        @Suppress("UNCHECKED_CAST")
-        val listeners = ArrayList(this.getListenersFor(type)) as MutableList<EventListener<T>>
+        val keyed = event as? KeyedEvent
+        val key = keyed?.key
+        val exclusive = keyed != null && keyed.keyedListenersOnly
+        var chain = this.getListenerChain(type)
+        if (key != null) {
+            chain = chain.getKeyedChain(type, key, exclusive, this.injected)
+        }
         try {
             this.stack.get().addTo(type, 1)
 
-            synchronized(this.registries) {
-                for (handler in this.registries) {
+            val injected = this.collectInjectedListeners(event, type, key, exclusive, chain)
+            if (injected == null) {
+                for (listener in chain.getListenersFor(phases)) {
                     @Suppress("UNCHECKED_CAST")
-                    listeners.addSorted(handler.getListenersFor(type) as List<EventListener<T>>)
-                }
-            }
-            synchronized(this.injected) {
-                for (injected in this.injected) {
-                    injected.injectListenerProviders(event) { handler ->
-                        @Suppress("UNCHECKED_CAST")
-                        listeners.addSorted(handler.getListenersFor(type) as List<EventListener<T>>)
-                    }
+                    this.invokeListener(executor, listener as EventListener<T>, event)
                 }
+                return
             }
 
-            for (listener in listeners) {
+            for (listener in injected) {
                 if (phases.contains(listener.phase)) {
-                    if (listener.requiresMainThread) {
-                        executor.execute { listener.invoke(event) }
-                    } else {
-                        listener.invoke(event)
-                    }
+                    @Suppress("UNCHECKED_CAST")
+                    this.invokeListener(executor, listener as EventListener<T>, event)
                 }
             }
         } finally {
@@ -107,16 +123,68 @@ public enum class GlobalEventHandler(
         }
     }
 
+    /**
+     * Checks whether broadcasting an event of the given [type] for
+     * the given [phases] may invoke any listeners.
+     *
+     * This is cached with the listeners themselves, so it is cheap
+     * to call. Events that are fired very frequently should check
+     * this before constructing the event to avoid the allocation
+     * and broadcast entirely when nothing is listening.
+     *
+     * This may return `true` if an [InjectedListenerProvider] could
+     * provide listeners for the given [type], even if it ends up
+     * not providing any for a specific event.
+     *
+     * @param type The type of event.
+     * @param phases The phases of the event that would be invoked.
+     * @return Whether there may be any listeners for the event.
+     */
+    @JvmOverloads
+    public fun hasListeners(type: Class<out Event>, phases: Set<String> = BuiltInEventPhases.DEFAULT_PHASES): Boolean {
+        val chain = this.getListenerChain(type)
+        return chain.injectable || chain.getListenersFor(phases).isNotEmpty()
+    }
+
+    /**
+     * Checks whether broadcasting a [KeyedEvent] of the given [type]
+     * with the given [key] for the given [phases] may invoke any listeners.
+     *
+     * The listeners for each key are resolved once and cached, so
+     * this is as cheap as [hasListeners] for an exact type.
+     *
+     * @param type The type of event.
+     * @param key The key of the event.
+     * @param phases The phases of the event that would be invoked.
+     * @param keyedListenersOnly Whether the event would only be delivered
+     *   to keyed listeners, see [KeyedEvent.keyedListenersOnly].
+     * @return Whether there may be any listeners for the event.
+     * @see EventListener.keys
+     */
+    @JvmOverloads
+    public fun hasListeners(
+        type: Class<out KeyedEvent>,
+        key: Class<*>,
+        phases: Set<String> = BuiltInEventPhases.DEFAULT_PHASES,
+        keyedListenersOnly: Boolean = false
+    ): Boolean {
+        val chain = this.getListenerChain(type).getKeyedChain(type, key, keyedListenersOnly, this.injected)
+        return chain.injectable || chain.getListenersFor(phases).isNotEmpty()
+    }
+
     /**
      * This adds a [ListenerProvider] to the [GlobalEventHandler].
      *
-     * This will call [ListenerProvider.getListenersFor] whenever
-     * an [Event] is broadcasted and invoke the listeners.
+     * This will call [ListenerProvider.getListenersFor] the first
+     * time an [Event] type is broadcasted, the listeners are then
+     * cached until they are invalidated, see [invalidate].
      *
      * @param handler The [ListenerProvider] to add.
      */
     public fun addProvider(handler: ListenerProvider) {
-        this.registries.add(handler)
+        if (this.registries.add(handler)) {
+            invalidate()
+        }
     }
 
     /**
@@ -125,7 +193,9 @@ public enum class GlobalEventHandler(
      * @param handler The [ListenerProvider] to remove.
      */
     public fun removeProvider(handler: ListenerProvider) {
-        this.registries.remove(handler)
+        if (this.registries.remove(handler)) {
+            invalidate()
+        }
     }
 
     /**
@@ -141,7 +211,12 @@ public enum class GlobalEventHandler(
      * @see InjectedListenerProvider
      */
     public fun addInjectedProvider(injected: InjectedListenerProvider) {
-        this.injected.add(injected)
+        synchronized(this.registries) {
+            if (!this.injected.contains(injected)) {
+                this.injected += injected
+            }
+        }
+        invalidate()
     }
 
     /**
@@ -150,7 +225,10 @@ public enum class GlobalEventHandler(
      * @param injected The [InjectedListenerProvider] to remove.
      */
     public fun removeInjectedProvider(injected: InjectedListenerProvider) {
-        this.injected.remove(injected)
+        synchronized(this.registries) {
+            this.injected = this.injected.filter { it !== injected }.toTypedArray()
+        }
+        invalidate()
     }
 
     /**
@@ -170,6 +248,83 @@ public enum class GlobalEventHandler(
         }
     }
 
+    private fun <T: Event> invokeListener(executor: Executor, listener: EventListener<T>, event: T) {
+        if (listener.requiresMainThread) {
+            executor.execute { this.invokeListener(listener, event) }
+        } else {
+            this.invokeListener(listener, event)
+        }
+    }
+
+    private fun <T: Event> invokeListener(listener: EventListener<T>, event: T) {
+        if (ListenerProfiler.enabled) {
+            ListenerProfiler.invoke(listener, event)
+        } else {
+            listener.invoke(event)
+        }
+    }
+
+    private fun getListenerChain(type: Class<out Event>): ListenerChain {
+        val version = modifications.get()
+        val cache = this.chains
+        if (cache.version == version) {
+            val chain = cache.chains[type]
+            if (chain != null) {
+                return chain
+            }
+        }
+        return this.compileListenerChain(type, version)
+    }
+
+    private fun compileListenerChain(type: Class<out Event>, version: Int): ListenerChain {
+        synchronized(this.registries) {
+            val cache = this.chains
+            if (cache.version == version) {
+                val existing = cache.chains[type]
+                if (existing != null) {
+                    return existing
+                }
+            }
+
+            @Suppress("UNCHECKED_CAST")
+            val listeners = ArrayList(this.getListenersFor(type)) as MutableList<EventListener<Event>>
+            for (handler in this.registries) {
+                @Suppress("UNCHECKED_CAST")
+                listeners.addSorted(handler.getListenersFor(type) as List<EventListener<Event>>)
+            }
+            val injectable = this.injected.any { it.mayProvideListenersFor(type) }
+            val chain = ListenerChain(listeners.toTypedArray(), injectable)
+
+            // Copy-on-write, readers never see a partially built map
+            val chains = if (cache.version == version) {
+                Reference2ObjectOpenHashMap(cache.chains)
+            } else {
+                Reference2ObjectOpenHashMap<Class<out Event>, ListenerChain>()
+            }
+            chains[type] = chain
+            this.chains = DispatchCache(version, chains)
+            return chain
+        }
+    }
+
+    private fun collectInjectedListeners(
+        event: Event,
+        type: Class<out Event>,
+        key: Class<*>?,
+        exclusive: Boolean,
+        chain: ListenerChain
+    ): List<EventListener<Event>>? {
+        if (!chain.injectable) {
+            return null
+        }
+        val injected = this.injected
+        val collector = InjectedListenerCollector(type, key, exclusive, chain)
+        for (provider in injected) {
+            provider.injectListenerProviders(event, collector)
+        }
+        return collector.listeners
+    }
+
     private fun checkRecursive(type: Class<out Event>): Boolean {
         val count = this.stack.get().getInt(type)
         if (count >= MAX_RECURSIONS) {
@@ -213,9 +368,147 @@ public enum class GlobalEventHandler(
         return executor
     }
 
+    private class DispatchCache(
+        val version: Int,
+        val chains: Reference2ObjectMap<Class<out Event>, ListenerChain>
+    ) {
+        companion object {
+            val EMPTY = DispatchCache(-1, Reference2ObjectMaps.emptyMap())
+        }
+    }
+
+    /**
+     * An immutable, pre-sorted array of listeners for a single event type.
+     *
+     * Phase filtered arrays are computed lazily and cached for the
+     * phase sets they were requested with, the built-in phase sets
+     * are constants, so in practice these are found by identity.
+     */
+    private class ListenerChain(val listeners: Array<EventListener<Event>>, val injectable: Boolean) {
+        @Volatile
+        private var phased = arrayOf<PhasedListeners>()
+
+        @Volatile
+        private var keyed: Reference2ObjectMap<Class<*>, ListenerChain> = Reference2ObjectMaps.emptyMap()
+
+        @Volatile
+        private var exclusive: Reference2ObjectMap<Class<*>, ListenerChain> = Reference2ObjectMaps.emptyMap()
+
+        fun getKeyedChain(
+            type: Class<out Event>,
+            key: Class<*>,
+            exclusive: Boolean,
+            injected: Array<InjectedListenerProvider>
+        ): ListenerChain {
+            val keyed = if (exclusive) this.exclusive else this.keyed
+            val existing = keyed[key]
+            if (existing != null) {
+                return existing
+            }
+
+            val listeners = this.listeners.filter { it.acceptsKey(key, exclusive) }.toTypedArray()
+            val injectable = this.injectable && injected.any { it.mayProvideListenersFor(type, key) }
+            val chain = ListenerChain(listeners, injectable)
+            if (keyed.size < MAX_KEYED_CACHE) {
+                val copy = Reference2ObjectOpenHashMap(keyed)
+                copy[key] = chain
+                if (exclusive) {
+                    this.exclusive = copy
+                } else {
+                    this.keyed = copy
+                }
+            }
+            return chain
+        }
+
+        fun getListenersFor(phases: Set<String>): Array<EventListener<Event>> {
+            val phased = this.phased
+            for (entry in phased) {
+                if (entry.phases === phases) {
+                    return entry.listeners
+                }
+            }
+            for (entry in phased) {
+                if (entry.phases == phases) {
+                    return entry.listeners
+                }
+            }
+
+            val filtered = this.listeners.filter { phases.contains(it.phase) }.toTypedArray()
+            if (phased.size < MAX_PHASED_CACHE) {
+                this.phased = phased + PhasedListeners(phases, filtered)
+            }
+            return filtered
+        }
+    }
+
+    private class PhasedListeners(val phases: Set<String>, val listeners: Array<EventListener<Event>>)
+
+    private class InjectedListenerCollector(
+        private val type: Class<out Event>,
+        private val key: Class<*>?,
+        private val exclusive: Boolean,
+        private val chain: ListenerChain
+    ): Consumer<ListenerProvider> {
+        var listeners: MutableList<EventListener<Event>>? = null
+
+        override fun accept(provider: ListenerProvider) {
+            @Suppress("UNCHECKED_CAST")
+            var provided = provider.getListenersFor(this.type) as List<EventListener<Event>>
+            val key = this.key
+            if (key != null && provided.any { !it.acceptsKey(key, this.exclusive) }) {
+                provided = provided.filter { it.acceptsKey(key, this.exclusive) }
+            }
+            if (provided.isEmpty()) {
+                return
+            }
+            var listeners = this.listeners
+            if (listeners == null) {
+                listeners = ArrayList(this.chain.listeners.size + provided.size)
+                listeners.addAll(this.chain.listeners)
+                this.listeners = listeners
+            }
+            listeners.addSorted(provided)
+        }
+    }
+
     public companion object {
         private const val MAX_RECURSIONS = 10
+        private const val MAX_PHASED_CACHE = 8
+        private const val MAX_KEYED_CACHE = 512
 
         private val logger = LogManager.getLogger("ArcadeEventHandler")
+
+        private val modifications = AtomicInteger()
+
+        /**
+         * The number of times the compiled listener chains have been
+         * invalidated, this can be used to cache the result of [hasListeners].
+         *
+         * @see invalidate
+         */
+        @Internal
+        @JvmStatic
+        public val modificationCount: Int
+            get() = modifications.get()
+
+        /**
+         * Invalidates the compiled listener chains of all
+         * [GlobalEventHandler]s.
+         *
+         * Listeners from [ListenerProvider]s are cached per event type
+         * and are only re-queried when a provider is added or removed,
+         * or when a [SimpleListenerRegistry] is modified.
+         * If you implement your own [ListenerProvider] whose listeners
+         * may change, you **must** call this after they change.
+         */
+        @JvmStatic
+        public fun invalidate() {
+            modifications.incrementAndGet()
+        }
+
+        private fun EventListener<*>.acceptsKey(key: Class<*>, exclusive: Boolean): Boolean {
+            return (!exclusive || this.keys != null) && this.acceptsKey(key)
+        }
     }
 }
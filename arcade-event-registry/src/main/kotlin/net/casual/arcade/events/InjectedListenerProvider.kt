@@ -5,6 +5,7 @@
 package net.casual.arcade.events
 
 import net.casual.arcade.events.common.Event
+import net.casual.arcade.events.common.KeyedEvent
 import java.util.function.Consumer
 
 /**
@@ -24,4 +25,36 @@ public fun interface InjectedListenerProvider {
      * @param consumer The consumer to add any additional [ListenerProvider]s.
      */
     public fun injectListenerProviders(event: Event, consumer: Consumer<ListenerProvider>)
+
+    /**
+     * Whether this provider may inject any listeners for
+     * events of the given [type].
+     *
+     * If this returns `false` then [injectListenerProviders] will
+     * not be called for events of the given type.
+     * The result is cached, if it may change you must call
+     * [GlobalEventHandler.invalidate].
+     *
+     * @param type The type of the event.
+     * @return Whether any listeners may be injected.
+     */
+    public fun mayProvideListenersFor(type: Class<out Event>): Boolean {
+        return true
+    }
+
+    /**
+     * Whether this provider may inject any listeners for
+     * [KeyedEvent]s of the given [type] with the given [key].
+     *
+     * The result is cached, if it may change you must call
+     * [GlobalEventHandler.invalidate].
+     *
+     * @param type The type of the event.
+     * @param key The key of the event.
+     * @return Whether any listeners may be injected.
+     * @see EventListener.acceptsKey
+     */
+    public fun mayProvideListenersFor(type: Class<out Event>, key: Class<*>): Boolean {
+        return this.mayProvideListenersFor(type)
+    }
 }
\ No newline at end of file
@@ -35,6 +35,9 @@ public interface ListenerProvider {
      *
      * The listeners **must** be sorted by their priority.
      *
+     * The returned listeners are cached by the [GlobalEventHandler],
+     * if the listeners change you must call [GlobalEventHandler.invalidate].
+     *
      * @param type The type of the [Event] to get listeners for.
      * @return The list of [EventListener]s for the given [type].
      */
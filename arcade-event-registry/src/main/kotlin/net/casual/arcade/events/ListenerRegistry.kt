@@ -58,6 +58,54 @@ public interface ListenerRegistry: ListenerProvider {
      */
     public fun <T: Event> register(type: Class<T>, listener: EventListener<T>)
 
+    /**
+     * Registers a polymorphic event listener with a given priority.
+     *
+     * This allows you to register a callback to a specific event type.
+     * Unlike [register], this callback will fire when instances of the
+     * given type, **or any of its subtypes**, are fired.
+     * This is useful for listening to a whole family of events,
+     * for example, all player events.
+     *
+     * The listeners for each event class are resolved once and cached
+     * until the registered listeners change, so broadcasting has
+     * no additional cost compared to an exact type listener.
+     *
+     * @param T The type of event.
+     * @param type The class of the event that you want to listen to.
+     * @param priority The priority of your event listener.
+     * @param phase The phase of the event, [DEFAULT] by default.
+     * @param listener The callback which will be invoked when the event is fired.
+     */
+    public fun <T: Event> registerPolymorphic(
+        type: Class<T>,
+        priority: Int = 1_000,
+        phase: String = DEFAULT,
+        requiresMainThread: Boolean = true,
+        listener: Consumer<T>
+    ) {
+        this.registerPolymorphic(type, EventListener.of(priority, phase, requiresMainThread, listener))
+    }
+
+    /**
+     * Registers a polymorphic event listener.
+     *
+     * This allows you to register a callback to a specific event type.
+     * Unlike [register], this callback will fire when instances of the
+     * given type, **or any of its subtypes**, are fired.
+     *
+     * Registries which don't support polymorphic listeners will throw
+     * an [UnsupportedOperationException], this is the default behaviour.
+     *
+     * @param T The type of event.
+     * @param type The class of the event that you want to listen to.
+     * @param listener The callback which will be invoked when the event is fired.
+     * @throws UnsupportedOperationException If this registry doesn't support polymorphic listeners.
+     */
+    public fun <T: Event> registerPolymorphic(type: Class<T>, listener: EventListener<T>) {
+        throw UnsupportedOperationException("${this.javaClass.simpleName} does not support polymorphic listeners")
+    }
+
     public companion object {
         /**
          * Registers an event listener with a given priority.
@@ -101,6 +149,27 @@ public interface ListenerRegistry: ListenerProvider {
         public inline fun <reified T: Event> ListenerRegistry.register(listener: Consumer<T>) {
             this.register(T::class.java, 1_000, DEFAULT, true, listener)
         }
+
+        /**
+         * Registers a polymorphic event listener with a given priority.
+         *
+         * This callback will fire when instances of the given type,
+         * **or any of its subtypes**, are fired.
+         *
+         * @param T The type of event.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         * @see ListenerRegistry.registerPolymorphic
+         */
+        public inline fun <reified T: Event> ListenerRegistry.registerPolymorphic(
+            priority: Int = 1_000,
+            phase: String = DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: Consumer<T>
+        ) {
+            this.registerPolymorphic(T::class.java, priority, phase, requiresMainThread, listener)
+        }
     }
 }
 
@@ -4,8 +4,12 @@
  */
 package net.casual.arcade.events
 
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMaps
 import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap
 import net.casual.arcade.events.common.Event
+import net.casual.arcade.events.profiling.ListenerProfiler
+import net.casual.arcade.utils.addSorted
 
 /**
  * This is an implementation of [ListenerProvider] which allows
@@ -23,21 +27,50 @@ import net.casual.arcade.events.common.Event
  * as normal and they will be invoked when the [GlobalEventHandler]
  * broadcasts the given event.
  *
+ * @param owner The owner of the registry, used to attribute
+ *   listeners when profiling, see [ListenerProfiler].
  * @see GlobalEventHandler
  * @see ListenerProvider
  */
-public class SimpleListenerRegistry: ListenerRegistry {
+public class SimpleListenerRegistry(
+    private val owner: Any? = null
+): ListenerRegistry {
     private val events = Reference2ObjectOpenHashMap<Class<out Event>, ArrayList<EventListener<*>>>()
+    private val polymorphic = Reference2ObjectOpenHashMap<Class<out Event>, ArrayList<EventListener<*>>>()
+
+    @Volatile
+    private var resolved: Reference2ObjectMap<Class<out Event>, List<EventListener<*>>> = Reference2ObjectMaps.emptyMap()
 
     /**
      * This method gets all the [EventListener]s for a given
      * [Event] type, given by [type].
      *
+     * This includes any polymorphic listeners registered for
+     * supertypes of the given [type], see [registerPolymorphic].
+     *
      * @param type The type of the [Event] to get listeners for.
      * @return The list of [EventListener]s for the given [type].
      */
     override fun <T: Event> getListenersFor(type: Class<T>): List<EventListener<*>> {
-        return this.events[type] ?: emptyList()
+        if (this.polymorphic.isEmpty()) {
+            return this.events[type] ?: emptyList()
+        }
+        val resolved = this.resolved
+        val existing = resolved[type]
+        if (existing != null) {
+            return existing
+        }
+
+        val listeners = this.resolveListenersFor(type)
+        synchronized(this) {
+            // Don't publish if the listeners were modified while resolving
+            if (this.resolved === resolved) {
+                val copy = Reference2ObjectOpenHashMap(resolved)
+                copy[type] = listeners
+                this.resolved = copy
+            }
+        }
+        return listeners
     }
 
     /**
@@ -55,13 +88,63 @@ public class SimpleListenerRegistry: ListenerRegistry {
         @Suppress("UNCHECKED_CAST")
         val listeners = this.events.getOrPut(type) { ArrayList() } as MutableList<EventListener<T>>
         listeners.add(this.findIndexForPriority(listeners, listener), listener)
+        this.setOwner(listener)
+        this.invalidate()
+    }
+
+    /**
+     * Registers a polymorphic event listener.
+     *
+     * This allows you to register a callback to a specific event type.
+     * This callback will fire when instances of the given type, **or
+     * any of its subtypes**, are fired.
+     *
+     * @param T The type of event.
+     * @param type The class of the event that you want to listen to.
+     * @param listener The callback which will be invoked when the event is fired.
+     */
+    override fun <T: Event> registerPolymorphic(type: Class<T>, listener: EventListener<T>) {
+        @Suppress("UNCHECKED_CAST")
+        val listeners = this.polymorphic.getOrPut(type) { ArrayList() } as MutableList<EventListener<T>>
+        listeners.add(this.findIndexForPriority(listeners, listener), listener)
+        this.setOwner(listener)
+        this.invalidate()
     }
 
     /**
      * Clears all event listeners from this EventHandler.
      */
     public fun clear() {
-        this.events.clear()
+        if (this.events.isNotEmpty() || this.polymorphic.isNotEmpty()) {
+            this.events.clear()
+            this.polymorphic.clear()
+            this.invalidate()
+        }
+    }
+
+    private fun resolveListenersFor(type: Class<out Event>): List<EventListener<*>> {
+        val listeners = ArrayList<EventListener<Event>>()
+        @Suppress("UNCHECKED_CAST")
+        listeners.addSorted((this.events[type] ?: emptyList()) as List<EventListener<Event>>)
+        for (supertype in EventHierarchy.get(type)) {
+            val polymorphic = this.polymorphic[supertype] ?: continue
+            @Suppress("UNCHECKED_CAST")
+            listeners.addSorted(polymorphic as List<EventListener<Event>>)
+        }
+        return listeners
+    }
+
+    private fun setOwner(listener: EventListener<*>) {
+        if (this.owner != null) {
+            ListenerProfiler.setOwner(listener, this.owner)
+        }
+    }
+
+    private fun invalidate() {
+        synchronized(this) {
+            this.resolved = Reference2ObjectMaps.emptyMap()
+        }
+        GlobalEventHandler.invalidate()
     }
 
     private fun <T: Event> findIndexForPriority(listeners: List<EventListener<T>>, listener: EventListener<T>): Int {
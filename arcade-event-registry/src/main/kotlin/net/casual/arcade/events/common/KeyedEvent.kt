@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.common
+
+import net.casual.arcade.events.EventListener
+
+/**
+ * This interface is used to represent events which are
+ * dispatched by a key, for example, the class of a packet.
+ *
+ * Listeners which specify [EventListener.keys] will only be
+ * invoked for events whose [key] they accept, the listeners
+ * for each key are resolved once and cached.
+ */
+public interface KeyedEvent: Event {
+    /**
+     * The key of the event.
+     */
+    public val key: Class<*>
+
+    /**
+     * Whether this event should only be delivered to listeners
+     * which specify [EventListener.keys], listeners without keys
+     * will not be invoked.
+     */
+    public val keyedListenersOnly: Boolean
+        get() = false
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.profiling
+
+import it.unimi.dsi.fastutil.longs.LongArrayList
+import net.casual.arcade.events.EventListener
+import net.casual.arcade.events.GlobalEventHandler
+import net.casual.arcade.events.SimpleListenerRegistry
+import net.casual.arcade.events.common.Event
+import java.lang.ref.WeakReference
+import java.nio.file.Path
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.io.path.bufferedWriter
+import kotlin.io.path.createDirectories
+
+/**
+ * Opt-in profiler for [EventListener]s invoked by the [GlobalEventHandler].
+ *
+ * While the profiler is [enabled] every listener invocation is timed,
+ * recording the number of calls, the total and maximum time spent in
+ * the listener, and the time spent excluding any events broadcast
+ * from within the listener.
+ * When disabled the only overhead is checking [enabled].
+ *
+ * Listeners are attributed to the owner of the [SimpleListenerRegistry]
+ * that they were registered to, for example, a minigame.
+ *
+ * @see ListenerStatistics
+ */
+public object ListenerProfiler {
+    private val owners = Collections.synchronizedMap(WeakHashMap<EventListener<*>, WeakReference<Any>>())
+    // Statistics are keyed by description so they outlive their listeners,
+    // the listeners themselves are only weakly referenced for quick lookups
+    private val statistics = ConcurrentHashMap<StatisticsKey, ListenerStatistics>()
+    private val resolved = Collections.synchronizedMap(WeakHashMap<EventListener<*>, ListenerStatistics>())
+    private val frames = ThreadLocal.withInitial { LongArrayList() }
+
+    /**
+     * Whether the profiler is currently recording.
+     */
+    @Volatile
+    @JvmStatic
+    public var enabled: Boolean = false
+        private set
+
+    /**
+     * Starts recording listener invocations.
+     */
+    public fun start() {
+        this.enabled = true
+    }
+
+    /**
+     * Stops recording listener invocations, the
+     * recorded statistics are kept until [reset].
+     */
+    public fun stop() {
+        this.enabled = false
+    }
+
+    /**
+     * Clears all the recorded statistics.
+     */
+    public fun reset() {
+        this.resolved.clear()
+        this.statistics.clear()
+    }
+
+    /**
+     * Gets the recorded statistics of all the profiled
+     * listeners, sorted by their total time, descending.
+     *
+     * @return The recorded statistics.
+     */
+    public fun getStatistics(): List<ListenerStatistics> {
+        return this.statistics.values.sortedByDescending { it.totalNanos }
+    }
+
+    /**
+     * Writes a report of the recorded statistics to the given [path].
+     *
+     * @param path The path of the file to write the report to.
+     */
+    public fun dump(path: Path) {
+        path.parent?.createDirectories()
+        path.bufferedWriter().use { writer ->
+            writer.write("count\ttotal_ms\tself_ms\tmean_us\tmax_us\tevent\towner\tlistener")
+            writer.newLine()
+            for (statistics in this.getStatistics()) {
+                writer.write(
+                    "%d\t%.3f\t%.3f\t%.3f\t%.3f\t%s\t%s\t%s".format(
+                        Locale.ROOT,
+                        statistics.count,
+                        statistics.totalNanos / 1_000_000.0,
+                        statistics.selfNanos / 1_000_000.0,
+                        statistics.meanNanos / 1_000.0,
+                        statistics.maxNanos / 1_000.0,
+                        statistics.type.name,
+                        statistics.owner,
+                        statistics.listener
+                    )
+                )
+                writer.newLine()
+            }
+        }
+    }
+
+    internal fun setOwner(listener: EventListener<*>, owner: Any) {
+        this.owners[listener] = WeakReference(owner)
+    }
+
+    internal fun <T: Event> invoke(listener: EventListener<T>, event: T) {
+        // Each frame accumulates the time spent in nested listeners,
+        // so we can attribute time to the listener that spent it
+        val frames = this.frames.get()
+        frames.add(0L)
+        val start = System.nanoTime()
+        try {
+            listener.invoke(event)
+        } finally {
+            val elapsed = System.nanoTime() - start
+            val nested = frames.removeLong(frames.size - 1)
+            if (!frames.isEmpty) {
+                val parent = frames.size - 1
+                frames.set(parent, frames.getLong(parent) + elapsed)
+            }
+            this.getStatistics(listener, event).record(elapsed, elapsed - nested)
+        }
+    }
+
+    private fun getStatistics(listener: EventListener<*>, event: Event): ListenerStatistics {
+        val existing = this.resolved[listener]
+        if (existing != null) {
+            return existing
+        }
+        val key = StatisticsKey(listener.toString(), this.getOwner(listener))
+        val statistics = this.statistics.computeIfAbsent(key) {
+            ListenerStatistics(it.listener, it.owner, event.javaClass)
+        }
+        this.resolved[listener] = statistics
+        return statistics
+    }
+
+    private fun getOwner(listener: EventListener<*>): String {
+        return this.owners[listener]?.get()?.toString() ?: "unknown"
+    }
+
+    private data class StatisticsKey(val listener: String, val owner: String)
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.profiling
+
+import net.casual.arcade.events.EventListener
+import net.casual.arcade.events.common.Event
+
+/**
+ * The statistics recorded by the [ListenerProfiler]
+ * for a single [EventListener].
+ */
+public class ListenerStatistics internal constructor(
+    /**
+     * A description of the listener.
+     */
+    public val listener: String,
+    /**
+     * A description of the owner of the listener.
+     */
+    public val owner: String,
+    /**
+     * The type of the event the listener was first invoked with.
+     */
+    public val type: Class<out Event>
+) {
+    /**
+     * The number of times the listener was invoked.
+     */
+    public var count: Long = 0
+        private set
+
+    /**
+     * The total time spent in the listener, in nanoseconds.
+     */
+    public var totalNanos: Long = 0
+        private set
+
+    /**
+     * The total time spent in the listener, excluding any
+     * nested listeners, in nanoseconds.
+     */
+    public var selfNanos: Long = 0
+        private set
+
+    /**
+     * The maximum time spent in a single invocation
+     * of the listener, in nanoseconds.
+     */
+    public var maxNanos: Long = 0
+        private set
+
+    /**
+     * The mean time spent in a single invocation
+     * of the listener, in nanoseconds.
+     */
+    public val meanNanos: Double
+        get() = if (this.count == 0L) 0.0 else this.totalNanos.toDouble() / this.count
+
+    @Synchronized
+    internal fun record(elapsed: Long, self: Long) {
+        this.count++
+        this.totalNanos += elapsed
+        this.selfNanos += self
+        if (elapsed > this.maxNanos) {
+            this.maxNanos = elapsed
+        }
+    }
+}
@@ -14,6 +14,7 @@ import net.casual.arcade.events.server.player.PlayerSendCommandsEvent;
 import net.minecraft.commands.CommandBuildContext;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
+import net.minecraft.network.protocol.game.ClientboundCommandsPacket;
 import net.minecraft.server.level.ServerPlayer;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -47,7 +48,8 @@ public abstract class CommandsMixin {
 		at = @At(
 			value = "INVOKE",
 			target = "Lnet/minecraft/commands/Commands;fillUsableCommands(Lcom/mojang/brigadier/tree/CommandNode;Lcom/mojang/brigadier/tree/CommandNode;Ljava/lang/Object;Ljava/util/Map;)V"
-		)
+		),
+		cancellable = true
 	)
 	private void onSendCommands(
 		ServerPlayer player,
@@ -57,6 +59,12 @@ public abstract class CommandsMixin {
 	) {
 		PlayerSendCommandsEvent event = new PlayerSendCommandsEvent(player);
 		GlobalEventHandler.Server.broadcast(event);
+		ClientboundCommandsPacket shared = event.getSharedPacket();
+		if (shared != null) {
+			player.connection.send(shared);
+			ci.cancel();
+			return;
+		}
 		for (RootCommandNode<CommandSourceStack> node : event.getCustomCommandNodes()) {
 			map.put(node, root);
 			fillUsableCommands(node, root, player.createCommandSourceStack(), map);
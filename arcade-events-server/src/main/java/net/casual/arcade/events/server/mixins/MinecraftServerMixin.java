@@ -5,6 +5,7 @@
 package net.casual.arcade.events.server.mixins;
 
 import net.casual.arcade.events.BuiltInEventPhases;
+import net.casual.arcade.events.EventLanes;
 import net.casual.arcade.events.GlobalEventHandler;
 import net.casual.arcade.events.server.*;
 import net.minecraft.server.MinecraftServer;
@@ -14,6 +15,7 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
+import java.time.Duration;
 import java.util.function.BooleanSupplier;
 
 @Mixin(MinecraftServer.class)
@@ -79,6 +81,15 @@ public class MinecraftServerMixin {
 		GlobalEventHandler.Server.broadcast(event);
 	}
 
+	@Inject(
+		method = "stopServer",
+		at = @At("TAIL")
+	)
+	private void onStopped(CallbackInfo ci) {
+		// Give any async listeners a chance to finish persisting
+		EventLanes.awaitIdle(Duration.ofSeconds(10));
+	}
+
 	@Inject(
 		method = "saveEverything",
 		at = @At("TAIL")
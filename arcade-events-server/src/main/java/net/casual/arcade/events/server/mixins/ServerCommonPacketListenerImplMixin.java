@@ -17,18 +17,25 @@ import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent;
 import net.minecraft.network.Connection;
 import net.minecraft.network.DisconnectionDetails;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.network.ServerCommonPacketListenerImpl;
 import net.minecraft.server.network.ServerGamePacketListenerImpl;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Mixin(ServerCommonPacketListenerImpl.class)
 public abstract class ServerCommonPacketListenerImplMixin {
 	@Shadow @Final protected MinecraftServer server;
@@ -42,22 +49,26 @@ public abstract class ServerCommonPacketListenerImplMixin {
 	)
 	private Packet<?> onSendPacket(Packet<?> value, @Cancellable CallbackInfo ci) {
 		ServerCommonPacketListenerImpl self = (ServerCommonPacketListenerImpl) (Object) this;
-		ClientboundPacketEvent event = new ClientboundPacketEvent(this.server, this.playerProfile(), value);
-		GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.PRE_PHASES);
-		if (event.isCancelled()) {
-			ci.cancel();
-			return event.getPacket();
+		Packet<?> packet = value;
+		if (GlobalEventHandler.Server.hasListeners(ClientboundPacketEvent.class, BuiltInEventPhases.PRE_PHASES)) {
+			ClientboundPacketEvent event = new ClientboundPacketEvent(this.server, this.playerProfile(), packet);
+			GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.PRE_PHASES);
+			if (event.isCancelled()) {
+				ci.cancel();
+				return event.getPacket();
+			}
+			packet = event.getPacket();
 		}
 
 		if (self instanceof ServerGamePacketListenerImpl connection) {
-			PlayerClientboundPacketEvent playerEvent = new PlayerClientboundPacketEvent(connection.player, event.getPacket());
-			GlobalEventHandler.Server.broadcast(playerEvent, BuiltInEventPhases.PRE_PHASES);
-			if (playerEvent.isCancelled()) {
+			Packet<?> modified = broadcastPrePacket(connection.player, packet);
+			if (modified == null) {
 				ci.cancel();
+				return packet;
 			}
-			return playerEvent.getPacket();
+			return modified;
 		}
-		return event.getPacket();
+		return packet;
 	}
 
 	@WrapOperation(
@@ -75,12 +86,18 @@ public abstract class ServerCommonPacketListenerImplMixin {
 		Operation<Void> original
 	) {
 		original.call(instance, packet, listener, flush);
-		ClientboundPacketEvent event = new ClientboundPacketEvent(this.server, this.playerProfile(), packet);
-		GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.POST_PHASES);
+		if (GlobalEventHandler.Server.hasListeners(ClientboundPacketEvent.class, BuiltInEventPhases.POST_PHASES)) {
+			ClientboundPacketEvent event = new ClientboundPacketEvent(this.server, this.playerProfile(), packet);
+			GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.POST_PHASES);
+		}
 
 		if ((Object) this instanceof ServerGamePacketListenerImpl connection) {
-			PlayerClientboundPacketEvent playerEvent = new PlayerClientboundPacketEvent(connection.player, event.getPacket());
-			GlobalEventHandler.Server.broadcast(playerEvent, BuiltInEventPhases.POST_PHASES);
+			broadcastPostPacket(connection.player, packet, null);
+			if (packet instanceof ClientboundBundlePacket bundle) {
+				for (Packet<?> sub : bundle.subPackets()) {
+					broadcastPostPacket(connection.player, sub, bundle);
+				}
+			}
 		}
 	}
 
@@ -92,4 +109,70 @@ public abstract class ServerCommonPacketListenerImplMixin {
 		PlayerDisconnectEvent event = new PlayerDisconnectEvent(this.server, this.playerProfile());
 		GlobalEventHandler.Server.broadcast(event);
 	}
+
+	@Unique
+	@Nullable
+	private static Packet<?> broadcastPrePacket(ServerPlayer player, Packet<?> packet) {
+		Packet<?> modified = broadcastPlayerPacket(player, packet, null);
+		// We don't descend into bundles that listeners replaced a packet
+		// with, the listeners already created those sub-packets themselves
+		if (packet instanceof ClientboundBundlePacket && modified instanceof ClientboundBundlePacket bundle) {
+			return broadcastPreBundle(player, bundle);
+		}
+		return modified;
+	}
+
+	@Unique
+	@SuppressWarnings("unchecked")
+	private static ClientboundBundlePacket broadcastPreBundle(ServerPlayer player, ClientboundBundlePacket bundle) {
+		List<Packet<? super ClientGamePacketListener>> updated = null;
+		int index = 0;
+		for (Packet<? super ClientGamePacketListener> sub : bundle.subPackets()) {
+			Packet<?> modified = broadcastPlayerPacket(player, sub, bundle);
+			if (modified != sub && updated == null) {
+				// Only copy the bundle once a sub-packet has actually changed
+				updated = new ArrayList<>();
+				for (Packet<? super ClientGamePacketListener> previous : bundle.subPackets()) {
+					if (updated.size() == index) {
+						break;
+					}
+					updated.add(previous);
+				}
+			}
+			if (updated != null && modified != null) {
+				if (modified instanceof ClientboundBundlePacket nested) {
+					for (Packet<? super ClientGamePacketListener> packet : nested.subPackets()) {
+						updated.add(packet);
+					}
+				} else {
+					updated.add((Packet<? super ClientGamePacketListener>) modified);
+				}
+			}
+			index++;
+		}
+		return updated == null ? bundle : new ClientboundBundlePacket(updated);
+	}
+
+	@Unique
+	@Nullable
+	private static Packet<?> broadcastPlayerPacket(ServerPlayer player, Packet<?> packet, @Nullable ClientboundBundlePacket bundle) {
+		// Sub-packets are only delivered to keyed listeners, unkeyed listeners already saw the bundle
+		if (!GlobalEventHandler.Server.hasListeners(PlayerClientboundPacketEvent.class, packet.getClass(), BuiltInEventPhases.PRE_PHASES, bundle != null)) {
+			return packet;
+		}
+		PlayerClientboundPacketEvent event = new PlayerClientboundPacketEvent(player, packet, bundle);
+		GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.PRE_PHASES);
+		if (event.isCancelled()) {
+			return null;
+		}
+		return event.getPacket();
+	}
+
+	@Unique
+	private static void broadcastPostPacket(ServerPlayer player, Packet<?> packet, @Nullable ClientboundBundlePacket bundle) {
+		if (GlobalEventHandler.Server.hasListeners(PlayerClientboundPacketEvent.class, packet.getClass(), BuiltInEventPhases.POST_PHASES, bundle != null)) {
+			PlayerClientboundPacketEvent event = new PlayerClientboundPacketEvent(player, packet, bundle);
+			GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.POST_PHASES);
+		}
+	}
 }
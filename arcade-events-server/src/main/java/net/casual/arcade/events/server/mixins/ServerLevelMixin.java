@@ -4,16 +4,24 @@
  */
 package net.casual.arcade.events.server.mixins;
 
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
 import net.casual.arcade.events.GlobalEventHandler;
+import net.casual.arcade.events.server.entity.EntityTickEvent;
+import net.casual.arcade.events.server.level.LevelBlockChangeCollector;
 import net.casual.arcade.events.server.level.LevelBlockChangedEvent;
+import net.casual.arcade.events.server.level.LevelBlocksChangedEvent;
 import net.casual.arcade.events.server.level.LevelTickEvent;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.block.state.BlockState;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -24,6 +32,8 @@ import java.util.function.BooleanSupplier;
 public class ServerLevelMixin {
 	@Shadow @Final private MinecraftServer server;
 
+	@Unique private final LevelBlockChangeCollector arcade$blockChanges = new LevelBlockChangeCollector();
+
 	@Inject(
 		method = "tick",
 		at = @At("HEAD")
@@ -33,11 +43,25 @@ public class ServerLevelMixin {
 		GlobalEventHandler.Server.broadcast(event);
 	}
 
+	@Inject(
+		method = "tick",
+		at = @At("TAIL")
+	)
+	private void onTickPost(BooleanSupplier hasTimeLeft, CallbackInfo ci) {
+		this.arcade$blockChanges.flush((ServerLevel) (Object) this);
+	}
+
 	@Inject(
 		method = "updatePOIOnBlockStateChange",
 		at = @At("HEAD")
 	)
 	private void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState, CallbackInfo ci) {
+		if (GlobalEventHandler.Server.hasListeners(LevelBlocksChangedEvent.class)) {
+			this.arcade$blockChanges.add(pos, oldState, newState);
+		}
+		if (!GlobalEventHandler.Server.hasListeners(LevelBlockChangedEvent.class)) {
+			return;
+		}
 		LevelBlockChangedEvent event = new LevelBlockChangedEvent((ServerLevel) (Object) this, pos, oldState, newState);
 		if (this.server.isSameThread()) {
 			GlobalEventHandler.Server.broadcast(event);
@@ -45,4 +69,39 @@ public class ServerLevelMixin {
 			this.server.execute(() -> GlobalEventHandler.Server.broadcast(event));
 		}
 	}
+
+	@WrapOperation(
+		method = "tickNonPassenger",
+		at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/world/entity/Entity;tick()V"
+		)
+	)
+	private void onTickEntity(Entity entity, Operation<Void> original) {
+		// Players are physically ticked in ServerPlayer#doTick, see ServerPlayerMixin
+		if (entity instanceof ServerPlayer) {
+			original.call(entity);
+			return;
+		}
+		EntityTickEvent.broadcastPre(entity);
+		original.call(entity);
+		EntityTickEvent.broadcastPost(entity);
+	}
+
+	@WrapOperation(
+		method = "tickPassenger",
+		at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/world/entity/Entity;rideTick()V"
+		)
+	)
+	private void onTickPassenger(Entity passenger, Operation<Void> original) {
+		if (passenger instanceof ServerPlayer) {
+			original.call(passenger);
+			return;
+		}
+		EntityTickEvent.broadcastPre(passenger);
+		original.call(passenger);
+		EntityTickEvent.broadcastPost(passenger);
+	}
 }
@@ -11,6 +11,7 @@ import com.mojang.authlib.GameProfile;
 import net.casual.arcade.events.BuiltInEventPhases;
 import net.casual.arcade.events.GlobalEventHandler;
 import net.casual.arcade.events.server.entity.EntityDeathEvent;
+import net.casual.arcade.events.server.entity.EntityTickEvent;
 import net.casual.arcade.events.server.player.*;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
@@ -55,6 +56,29 @@ public abstract class ServerPlayerMixin extends Player {
 		GlobalEventHandler.Server.broadcast(event, BuiltInEventPhases.POST_PHASES);
 	}
 
+	@Inject(
+		method = "doTick",
+		at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/world/entity/player/Player;tick()V"
+		)
+	)
+	private void onPhysicsTickPre(CallbackInfo ci) {
+		EntityTickEvent.broadcastPre((ServerPlayer) (Object) this);
+	}
+
+	@Inject(
+		method = "doTick",
+		at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/world/entity/player/Player;tick()V",
+			shift = At.Shift.AFTER
+		)
+	)
+	private void onPhysicsTickPost(CallbackInfo ci) {
+		EntityTickEvent.broadcastPost((ServerPlayer) (Object) this);
+	}
+
 	@Inject(
 		method = "onInsideBlock",
 		at = @At("HEAD")
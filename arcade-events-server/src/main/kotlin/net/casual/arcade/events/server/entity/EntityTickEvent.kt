@@ -4,8 +4,148 @@
  */
 package net.casual.arcade.events.server.entity
 
+import net.casual.arcade.events.BuiltInEventPhases
+import net.casual.arcade.events.EventListener
+import net.casual.arcade.events.GlobalEventHandler
+import net.casual.arcade.events.ListenerRegistry
+import net.casual.arcade.events.common.KeyedEvent
 import net.minecraft.world.entity.Entity
+import net.minecraft.world.entity.EntityType
+import org.jetbrains.annotations.ApiStatus.Internal
+import java.util.function.BiConsumer
 
+/**
+ * This event is fired when an entity is ticked by a server level.
+ *
+ * The [PRE_PHASE] is invoked before the entity ticks, and
+ * the [POST_PHASE] is invoked after the entity has ticked.
+ * Players are ticked by their connection rather than the level,
+ * so for players this is fired around their physics tick instead.
+ *
+ * This is a [KeyedEvent] keyed by the class of the [entity], listeners
+ * that are only interested in specific entities should be registered
+ * with [registerEntityTick] so that they aren't invoked for every entity.
+ *
+ * A new instance is created for each tick, listeners that don't keep
+ * a reference to the event may instead listen to [ReusableEntityTickEvent]
+ * which avoids the allocation.
+ */
 public data class EntityTickEvent(
     override val entity: Entity
-): EntityEvent
\ No newline at end of file
+): EntityEvent, KeyedEvent {
+    override val key: Class<*>
+        get() = this.entity.javaClass
+
+    public companion object {
+        /**
+         * The phase is invoked before the entity has ticked.
+         *
+         * This is the default phase for this event.
+         */
+        public const val PRE_PHASE: String = BuiltInEventPhases.PRE
+
+        /**
+         * This phase is invoked **after** the entity has ticked.
+         */
+        public const val POST_PHASE: String = BuiltInEventPhases.POST
+
+        /**
+         * Creates a listener which is only invoked when
+         * entities of the given [types] are ticked.
+         *
+         * @param types The classes of the entities to listen to.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         * @return The created listener.
+         */
+        public fun listener(
+            types: Collection<Class<out Entity>>,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: BiConsumer<EntityTickEvent, Entity>
+        ): EventListener<EntityTickEvent> {
+            return EntityTickListeners.keyed(types, priority, phase, requiresMainThread, listener)
+        }
+
+        /**
+         * Registers a listener which is only invoked when
+         * entities of type [E] are ticked.
+         *
+         * @param E The type of entity.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         */
+        public inline fun <reified E: Entity> ListenerRegistry.registerEntityTick(
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            crossinline listener: (EntityTickEvent, E) -> Unit
+        ) {
+            val types = listOf(E::class.java)
+            val registered = EntityTickEvent.listener(types, priority, phase, requiresMainThread) { event, entity ->
+                listener.invoke(event, entity as E)
+            }
+            this.register(EntityTickEvent::class.java, registered)
+        }
+
+        /**
+         * Registers a listener which is only invoked when
+         * entities of the given [type] are ticked.
+         *
+         * @param E The type of entity.
+         * @param type The entity type to listen to.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         */
+        public fun <E: Entity> ListenerRegistry.registerEntityTick(
+            type: EntityType<E>,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: BiConsumer<EntityTickEvent, E>
+        ) {
+            val registered = EntityTickListeners.typed(type, priority, phase, requiresMainThread, listener)
+            this.register(EntityTickEvent::class.java, registered)
+        }
+
+        /**
+         * Broadcasts the [PRE_PHASE] for the given [entity], to
+         * both [EntityTickEvent] and [ReusableEntityTickEvent] listeners.
+         *
+         * @param entity The entity about to be ticked.
+         */
+        @Internal
+        @JvmStatic
+        public fun broadcastPre(entity: Entity) {
+            val flags = EntityTickListeners.getListenerFlags(entity.javaClass)
+            if (flags and EntityTickListeners.TICK_PRE != 0) {
+                GlobalEventHandler.Server.broadcast(EntityTickEvent(entity), BuiltInEventPhases.PRE_PHASES)
+            }
+            if (flags and EntityTickListeners.REUSABLE_PRE != 0) {
+                ReusableEntityTickEvent.broadcast(entity, BuiltInEventPhases.PRE_PHASES)
+            }
+        }
+
+        /**
+         * Broadcasts the [POST_PHASE] for the given [entity], to
+         * both [EntityTickEvent] and [ReusableEntityTickEvent] listeners.
+         *
+         * @param entity The entity that has ticked.
+         */
+        @Internal
+        @JvmStatic
+        public fun broadcastPost(entity: Entity) {
+            val flags = EntityTickListeners.getListenerFlags(entity.javaClass)
+            if (flags and EntityTickListeners.TICK_POST != 0) {
+                GlobalEventHandler.Server.broadcast(EntityTickEvent(entity), BuiltInEventPhases.POST_PHASES)
+            }
+            if (flags and EntityTickListeners.REUSABLE_POST != 0) {
+                ReusableEntityTickEvent.broadcast(entity, BuiltInEventPhases.POST_PHASES)
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.server.entity
+
+import net.casual.arcade.events.BuiltInEventPhases
+import net.casual.arcade.events.EventListener
+import net.casual.arcade.events.GlobalEventHandler
+import net.casual.arcade.events.common.KeyedEvent
+import net.minecraft.world.entity.Entity
+import net.minecraft.world.entity.EntityType
+import java.util.function.BiConsumer
+
+/**
+ * Shared implementation of [EntityTickEvent] and [ReusableEntityTickEvent].
+ */
+internal object EntityTickListeners {
+    const val TICK_PRE: Int = 1
+    const val TICK_POST: Int = 2
+    const val REUSABLE_PRE: Int = 4
+    const val REUSABLE_POST: Int = 8
+
+    private const val COMPUTED = 16
+
+    private val states = object: ClassValue<ListenerState>() {
+        override fun computeValue(type: Class<*>): ListenerState {
+            return ListenerState(type)
+        }
+    }
+
+    fun <T> keyed(
+        types: Collection<Class<out Entity>>,
+        priority: Int,
+        phase: String,
+        requiresMainThread: Boolean,
+        listener: BiConsumer<T, Entity>
+    ): EventListener<T> where T: EntityEvent, T: KeyedEvent {
+        return EventListener.keyed(types, priority, phase, requiresMainThread) { event ->
+            listener.accept(event, event.entity)
+        }
+    }
+
+    fun <T, E: Entity> typed(
+        type: EntityType<E>,
+        priority: Int,
+        phase: String,
+        requiresMainThread: Boolean,
+        listener: BiConsumer<T, E>
+    ): EventListener<T> where T: EntityEvent, T: KeyedEvent {
+        return this.keyed<T>(listOf(type.baseClass), priority, phase, requiresMainThread) { event, entity ->
+            // Multiple entity types may share the same base class
+            if (entity.type === type) {
+                @Suppress("UNCHECKED_CAST")
+                listener.accept(event, entity as E)
+            }
+        }
+    }
+
+    /**
+     * Gets which tick events have listeners for the given
+     * entity class, this is cached until the listeners are invalidated.
+     *
+     * @param type The class of the ticking entity.
+     * @return The flags of the events with listeners.
+     */
+    fun getListenerFlags(type: Class<out Entity>): Int {
+        return this.states.get(type).getFlags()
+    }
+
+    private class ListenerState(private val type: Class<*>) {
+        // The modification count is stored in the upper bits, and the flags in the lower bits
+        @Volatile
+        private var state = 0L
+
+        fun getFlags(): Int {
+            val version = GlobalEventHandler.modificationCount
+            val state = this.state
+            if ((state ushr 32).toInt() == version && state.toInt() and COMPUTED != 0) {
+                return state.toInt()
+            }
+
+            var flags = COMPUTED
+            if (this.hasListeners(EntityTickEvent::class.java, BuiltInEventPhases.PRE_PHASES)) {
+                flags = flags or TICK_PRE
+            }
+            if (this.hasListeners(EntityTickEvent::class.java, BuiltInEventPhases.POST_PHASES)) {
+                flags = flags or TICK_POST
+            }
+            if (this.hasListeners(ReusableEntityTickEvent::class.java, BuiltInEventPhases.PRE_PHASES)) {
+                flags = flags or REUSABLE_PRE
+            }
+            if (this.hasListeners(ReusableEntityTickEvent::class.java, BuiltInEventPhases.POST_PHASES)) {
+                flags = flags or REUSABLE_POST
+            }
+            this.state = (version.toLong() shl 32) or flags.toLong()
+            return flags
+        }
+
+        private fun hasListeners(event: Class<out KeyedEvent>, phases: Set<String>): Boolean {
+            return GlobalEventHandler.Server.hasListeners(event, this.type, phases)
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.server.entity
+
+import net.casual.arcade.events.BuiltInEventPhases
+import net.casual.arcade.events.EventListener
+import net.casual.arcade.events.GlobalEventHandler
+import net.casual.arcade.events.ListenerRegistry
+import net.casual.arcade.events.common.KeyedEvent
+import net.minecraft.world.entity.Entity
+import net.minecraft.world.entity.EntityType
+import java.util.function.BiConsumer
+
+/**
+ * This event is fired when an entity is ticked by a server level,
+ * it is fired alongside [EntityTickEvent].
+ *
+ * Unlike [EntityTickEvent], this event instance is re-used for
+ * subsequent ticks, listeners **must not** keep a reference to
+ * the event, accessing [entity] after the listener has returned
+ * will throw an [IllegalStateException].
+ * This should be preferred for listeners of frequently ticked entities.
+ *
+ * @see EntityTickEvent
+ */
+public class ReusableEntityTickEvent private constructor(): EntityEvent, KeyedEvent {
+    private var current: Entity? = null
+    private var broadcasting = false
+
+    override val entity: Entity
+        get() = this.current ?: throw IllegalStateException("Cannot access ReusableEntityTickEvent outside of its broadcast")
+
+    override val key: Class<*>
+        get() = this.entity.javaClass
+
+    private constructor(entity: Entity): this() {
+        this.current = entity
+    }
+
+    public operator fun component1(): Entity {
+        return this.entity
+    }
+
+    override fun toString(): String {
+        return "ReusableEntityTickEvent(entity=${this.current})"
+    }
+
+    public companion object {
+        /**
+         * The phase is invoked before the entity has ticked.
+         *
+         * This is the default phase for this event.
+         */
+        public const val PRE_PHASE: String = BuiltInEventPhases.PRE
+
+        /**
+         * This phase is invoked **after** the entity has ticked.
+         */
+        public const val POST_PHASE: String = BuiltInEventPhases.POST
+
+        private val reusable = ThreadLocal.withInitial { ReusableEntityTickEvent() }
+
+        /**
+         * Creates a listener which is only invoked when
+         * entities of the given [types] are ticked.
+         *
+         * @see EntityTickEvent.listener
+         */
+        public fun listener(
+            types: Collection<Class<out Entity>>,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: BiConsumer<ReusableEntityTickEvent, Entity>
+        ): EventListener<ReusableEntityTickEvent> {
+            return EntityTickListeners.keyed(types, priority, phase, requiresMainThread, listener)
+        }
+
+        /**
+         * Registers a listener which is only invoked when
+         * entities of type [E] are ticked.
+         *
+         * @see EntityTickEvent.registerEntityTick
+         */
+        public inline fun <reified E: Entity> ListenerRegistry.registerReusableEntityTick(
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            crossinline listener: (ReusableEntityTickEvent, E) -> Unit
+        ) {
+            val types = listOf(E::class.java)
+            val registered = ReusableEntityTickEvent.listener(types, priority, phase, requiresMainThread) { event, entity ->
+                listener.invoke(event, entity as E)
+            }
+            this.register(ReusableEntityTickEvent::class.java, registered)
+        }
+
+        /**
+         * Registers a listener which is only invoked when
+         * entities of the given [type] are ticked.
+         *
+         * @see EntityTickEvent.registerEntityTick
+         */
+        public fun <E: Entity> ListenerRegistry.registerReusableEntityTick(
+            type: EntityType<E>,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: BiConsumer<ReusableEntityTickEvent, E>
+        ) {
+            val registered = EntityTickListeners.typed(type, priority, phase, requiresMainThread, listener)
+            this.register(ReusableEntityTickEvent::class.java, registered)
+        }
+
+        internal fun broadcast(entity: Entity, phases: Set<String>) {
+            // Listeners may be deferred to the main thread, or an entity may
+            // be ticked within a listener, in which case we can't re-use the event
+            val reusable = this.reusable.get()
+            val server = entity.level().server
+            if (reusable.broadcasting || server == null || !server.isSameThread) {
+                GlobalEventHandler.Server.broadcast(ReusableEntityTickEvent(entity), phases)
+                return
+            }
+            reusable.current = entity
+            reusable.broadcasting = true
+            try {
+                GlobalEventHandler.Server.broadcast(reusable, phases)
+            } finally {
+                reusable.broadcasting = false
+                reusable.current = null
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.server.level
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.longs.LongArrayList
+import net.casual.arcade.events.GlobalEventHandler
+import net.minecraft.core.BlockPos
+import net.minecraft.core.SectionPos
+import net.minecraft.server.level.ServerLevel
+import net.minecraft.world.level.block.state.BlockState
+import org.jetbrains.annotations.ApiStatus.Internal
+
+/**
+ * Collects the block changes of a level for [LevelBlocksChangedEvent].
+ *
+ * Changes may be added from any thread, they are
+ * broadcast on the main thread when [flush]ed.
+ */
+@Internal
+public class LevelBlockChangeCollector {
+    private var changes = Long2ObjectOpenHashMap<LongArrayList>()
+    private var size = 0
+
+    @Synchronized
+    public fun add(pos: BlockPos, old: BlockState, new: BlockState) {
+        val section = SectionPos.asLong(pos)
+        var changes = this.changes.get(section)
+        if (changes == null) {
+            changes = LongArrayList(INITIAL_SECTION_CAPACITY)
+            this.changes.put(section, changes)
+        }
+        changes.add(LevelBlocksChangedEvent.pack(pos, old, new))
+        this.size++
+    }
+
+    public fun flush(level: ServerLevel) {
+        val event = synchronized(this) {
+            if (this.size == 0) {
+                return
+            }
+            val event = LevelBlocksChangedEvent(level, this.changes, this.size)
+            this.changes = Long2ObjectOpenHashMap()
+            this.size = 0
+            event
+        }
+        if (GlobalEventHandler.Server.hasListeners(LevelBlocksChangedEvent::class.java)) {
+            GlobalEventHandler.Server.broadcast(event)
+        }
+    }
+
+    private companion object {
+        const val INITIAL_SECTION_CAPACITY = 16
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.events.server.level
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps
+import it.unimi.dsi.fastutil.longs.LongArrayList
+import it.unimi.dsi.fastutil.longs.LongSet
+import it.unimi.dsi.fastutil.longs.LongSets
+import net.minecraft.core.BlockPos
+import net.minecraft.core.SectionPos
+import net.minecraft.server.level.ServerLevel
+import net.minecraft.world.level.block.Block
+import net.minecraft.world.level.block.state.BlockState
+
+/**
+ * This event is fired at the end of each level tick with all
+ * the block changes in the level since it was last fired.
+ *
+ * This is a batched alternative to [LevelBlockChangedEvent],
+ * which should be preferred by listeners that only care about
+ * the aggregate changes, for example, when resetting a map.
+ * Block changes are only collected while there are listeners
+ * for this event.
+ *
+ * The changes are grouped by section, see [SectionPos.asLong],
+ * each change is packed into a single long, in the order they
+ * happened, see [getLocalX], [getLocalY], [getLocalZ], [getOldState],
+ * and [getNewState] for unpacking.
+ *
+ * @see LevelBlockChangedEvent
+ */
+public class LevelBlocksChangedEvent internal constructor(
+    override val level: ServerLevel,
+    private val changes: Long2ObjectMap<LongArrayList>,
+    /**
+     * The total number of block changes.
+     */
+    public val size: Int
+): LevelEvent {
+    /**
+     * Gets the keys of all the sections that contain changes.
+     *
+     * @return The changed section keys.
+     * @see SectionPos.asLong
+     */
+    public fun getSections(): LongSet {
+        return LongSets.unmodifiable(this.changes.keys)
+    }
+
+    /**
+     * Gets the packed changes in the given section.
+     *
+     * @param section The section key, see [SectionPos.asLong].
+     * @return The packed changes, empty if there were none.
+     */
+    public fun getChanges(section: Long): LongArray {
+        return this.changes.get(section)?.toLongArray() ?: LongArray(0)
+    }
+
+    /**
+     * Iterates over all the block changes.
+     *
+     * The [BlockPos] passed to the [consumer] is mutable and
+     * is re-used, it should be copied if it is stored.
+     *
+     * @param consumer The consumer for each change.
+     */
+    public fun forEach(consumer: (pos: BlockPos, old: BlockState, new: BlockState) -> Unit) {
+        val pos = BlockPos.MutableBlockPos()
+        for (entry in Long2ObjectMaps.fastIterable(this.changes)) {
+            val section = entry.longKey
+            val changes = entry.value
+            for (i in 0 until changes.size) {
+                val packed = changes.getLong(i)
+                consumer.invoke(getPos(section, packed, pos), getOldState(packed), getNewState(packed))
+            }
+        }
+    }
+
+    public companion object {
+        private const val LOCAL_BITS = 12
+        private const val STATE_BITS = 26
+        private const val STATE_MASK = (1L shl STATE_BITS) - 1
+
+        /**
+         * Packs a block change into a single long.
+         *
+         * @param pos The position of the change.
+         * @param old The previous block state.
+         * @param new The new block state.
+         * @return The packed block change.
+         */
+        @JvmStatic
+        public fun pack(pos: BlockPos, old: BlockState, new: BlockState): Long {
+            val local = (pos.x and 15) or ((pos.z and 15) shl 4) or ((pos.y and 15) shl 8)
+            val oldId = Block.getId(old).toLong() and STATE_MASK
+            val newId = Block.getId(new).toLong() and STATE_MASK
+            return local.toLong() or (oldId shl LOCAL_BITS) or (newId shl (LOCAL_BITS + STATE_BITS))
+        }
+
+        @JvmStatic
+        public fun getLocalX(packed: Long): Int {
+            return (packed and 15).toInt()
+        }
+
+        @JvmStatic
+        public fun getLocalZ(packed: Long): Int {
+            return ((packed shr 4) and 15).toInt()
+        }
+
+        @JvmStatic
+        public fun getLocalY(packed: Long): Int {
+            return ((packed shr 8) and 15).toInt()
+        }
+
+        @JvmStatic
+        public fun getOldState(packed: Long): BlockState {
+            return Block.stateById(((packed ushr LOCAL_BITS) and STATE_MASK).toInt())
+        }
+
+        @JvmStatic
+        public fun getNewState(packed: Long): BlockState {
+            return Block.stateById(((packed ushr (LOCAL_BITS + STATE_BITS)) and STATE_MASK).toInt())
+        }
+
+        /**
+         * Gets the position of a packed block change.
+         *
+         * @param section The section key, see [SectionPos.asLong].
+         * @param packed The packed block change.
+         * @param pos The mutable position to set.
+         * @return The given mutable position.
+         */
+        @JvmStatic
+        public fun getPos(section: Long, packed: Long, pos: BlockPos.MutableBlockPos): BlockPos.MutableBlockPos {
+            return pos.set(
+                SectionPos.sectionToBlockCoord(SectionPos.x(section), getLocalX(packed)),
+                SectionPos.sectionToBlockCoord(SectionPos.y(section), getLocalY(packed)),
+                SectionPos.sectionToBlockCoord(SectionPos.z(section), getLocalZ(packed))
+            )
+        }
+    }
+}
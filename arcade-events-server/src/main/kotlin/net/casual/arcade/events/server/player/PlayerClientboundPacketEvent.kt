@@ -5,15 +5,43 @@
 package net.casual.arcade.events.server.player
 
 import net.casual.arcade.events.BuiltInEventPhases
+import net.casual.arcade.events.EventListener
+import net.casual.arcade.events.ListenerRegistry
 import net.casual.arcade.events.common.CancellableEvent
+import net.casual.arcade.events.common.KeyedEvent
 import net.casual.arcade.events.common.MissingExecutorEvent
 import net.minecraft.network.protocol.Packet
+import net.minecraft.network.protocol.game.ClientboundBundlePacket
 import net.minecraft.server.level.ServerPlayer
+import java.util.function.BiConsumer
 
-public data class PlayerClientboundPacketEvent(
+/**
+ * This event is fired when a packet is sent to a player.
+ *
+ * This is a [KeyedEvent] keyed by the class of the [packet], listeners
+ * that are only interested in specific packets should be registered
+ * with [registerPacket] so that they aren't invoked for every packet.
+ *
+ * The sub-packets of a [ClientboundBundlePacket] are also broadcast
+ * individually, after the bundle itself, however these are only
+ * delivered to listeners registered for specific packets. Listeners
+ * without keys only see the [bundle] itself.
+ */
+public data class PlayerClientboundPacketEvent @JvmOverloads constructor(
     override val player: ServerPlayer,
-    var packet: Packet<*>
-): CancellableEvent.Default(), PlayerEvent, MissingExecutorEvent {
+    var packet: Packet<*>,
+    /**
+     * The bundle that the [packet] is being sent in,
+     * `null` if the packet isn't a sub-packet of a bundle.
+     */
+    val bundle: ClientboundBundlePacket? = null
+): CancellableEvent.Default(), PlayerEvent, KeyedEvent, MissingExecutorEvent {
+    override val key: Class<*>
+        get() = this.packet.javaClass
+
+    override val keyedListenersOnly: Boolean
+        get() = this.bundle != null
+
     public companion object {
         /**
          * The phase is invoked before the packet has been sent to the player.
@@ -41,5 +69,53 @@ public data class PlayerClientboundPacketEvent(
                 }
             }
         }
+
+        /**
+         * Creates a listener which is only invoked when
+         * packets of the given [types] are sent to a player.
+         *
+         * @param types The classes of the packets to listen to.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         * @return The created listener.
+         */
+        public fun listener(
+            types: Collection<Class<out Packet<*>>>,
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            listener: BiConsumer<PlayerClientboundPacketEvent, Packet<*>>
+        ): EventListener<PlayerClientboundPacketEvent> {
+            return EventListener.keyed(types, priority, phase, requiresMainThread) { event ->
+                // A previous listener may have replaced the packet
+                val packet = event.packet
+                if (types.any { it.isInstance(packet) }) {
+                    listener.accept(event, packet)
+                }
+            }
+        }
+
+        /**
+         * Registers a listener which is only invoked when
+         * packets of type [P] are sent to a player.
+         *
+         * @param P The type of packet.
+         * @param priority The priority of your event listener.
+         * @param phase The phase of the event, [BuiltInEventPhases.DEFAULT] by default.
+         * @param listener The callback which will be invoked when the event is fired.
+         */
+        public inline fun <reified P: Packet<*>> ListenerRegistry.registerPacket(
+            priority: Int = 1_000,
+            phase: String = BuiltInEventPhases.DEFAULT,
+            requiresMainThread: Boolean = true,
+            crossinline listener: (PlayerClientboundPacketEvent, P) -> Unit
+        ) {
+            val types = listOf(P::class.java)
+            val registered = PlayerClientboundPacketEvent.listener(types, priority, phase, requiresMainThread) { event, packet ->
+                listener.invoke(event, packet as P)
+            }
+            this.register(PlayerClientboundPacketEvent::class.java, registered)
+        }
     }
-}
\ No newline at end of file
+}
@@ -6,13 +6,24 @@ package net.casual.arcade.events.server.player
 
 import com.mojang.brigadier.tree.RootCommandNode
 import net.minecraft.commands.CommandSourceStack
+import net.minecraft.network.protocol.game.ClientboundCommandsPacket
 import net.minecraft.server.level.ServerPlayer
+import org.jetbrains.annotations.ApiStatus.Internal
 import java.util.*
 
 public class PlayerSendCommandsEvent(
     override val player: ServerPlayer
 ): PlayerEvent {
     private val nodes = LinkedList<RootCommandNode<CommandSourceStack>>()
+    private val keys = ArrayList<Any>()
+    private var shareable = true
+
+    /**
+     * A previously built packet for an identical command tree,
+     * if set this will be sent instead of building the tree.
+     */
+    @Internal
+    public var sharedPacket: ClientboundCommandsPacket? = null
 
     public fun addCustomCommandNode(root: RootCommandNode<CommandSourceStack>) {
         this.nodes.add(root)
@@ -21,4 +32,34 @@ public class PlayerSendCommandsEvent(
     public fun getCustomCommandNodes(): List<RootCommandNode<CommandSourceStack>> {
         return this.nodes
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds a key which the player's command tree depends on.
+     *
+     * Players with the same permission level, custom command nodes,
+     * and cache keys may be sent the same command tree. If your
+     * custom command node has requirements that depend on any other
+     * state of the player, it should be added as a key.
+     *
+     * @param key The key, this must implement equals and hashcode.
+     */
+    public fun addCacheKey(key: Any) {
+        this.keys.add(key)
+    }
+
+    public fun getCacheKeys(): List<Any> {
+        return this.keys
+    }
+
+    /**
+     * Marks the player's command tree as unique to this
+     * player, so it will never be shared with other players.
+     */
+    public fun preventSharing() {
+        this.shareable = false
+    }
+
+    public fun isShareable(): Boolean {
+        return this.shareable
+    }
+}
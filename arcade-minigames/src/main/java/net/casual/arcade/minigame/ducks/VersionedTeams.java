@@ -0,0 +1,9 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.minigame.ducks;
+
+public interface VersionedTeams {
+	int arcade$getTeamVersion();
+}
@@ -6,20 +6,26 @@ package net.casual.arcade.minigame.mixins;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import net.casual.arcade.minigame.ducks.VersionedTeams;
 import net.minecraft.world.scores.PlayerTeam;
 import net.minecraft.world.scores.Scoreboard;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Mutable;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(Scoreboard.class)
-public class ScoreboardMixin {
+public class ScoreboardMixin implements VersionedTeams {
 	@Shadow @Mutable @Final private Object2ObjectMap<String, PlayerTeam> teamsByName;
 
+	// Incremented whenever any team membership changes
+	@Unique private int arcade$teamVersion = 0;
+
 	@Inject(
 		method = "<init>",
 		at = @At("TAIL")
@@ -28,4 +34,33 @@ public class ScoreboardMixin {
 		// Iterate teams in consistent order
 		this.teamsByName = new Object2ObjectLinkedOpenHashMap<>();
 	}
+
+	@Inject(
+		method = "addPlayerToTeam",
+		at = @At("RETURN")
+	)
+	private void onAddPlayerToTeam(String name, PlayerTeam team, CallbackInfoReturnable<Boolean> cir) {
+		this.arcade$teamVersion++;
+	}
+
+	@Inject(
+		method = "removePlayerFromTeam(Ljava/lang/String;Lnet/minecraft/world/scores/PlayerTeam;)V",
+		at = @At("TAIL")
+	)
+	private void onRemovePlayerFromTeam(String name, PlayerTeam team, CallbackInfo ci) {
+		this.arcade$teamVersion++;
+	}
+
+	@Inject(
+		method = "removePlayerTeam",
+		at = @At("TAIL")
+	)
+	private void onRemovePlayerTeam(PlayerTeam team, CallbackInfo ci) {
+		this.arcade$teamVersion++;
+	}
+
+	@Override
+	public int arcade$getTeamVersion() {
+		return this.arcade$teamVersion;
+	}
 }
@@ -22,7 +22,6 @@ import net.casual.arcade.minigame.serialization.MinigameFactory
 import net.casual.arcade.minigame.serialization.MinigameSerializer
 import net.casual.arcade.minigame.settings.MinigameSettings
 import net.casual.arcade.minigame.stats.ArcadeStats
-import net.casual.arcade.minigame.stats.Stat.Companion.increment
 import net.casual.arcade.minigame.utils.MinigameResources
 import net.casual.arcade.minigame.utils.MinigameResources.Companion.removeFrom
 import net.casual.arcade.minigame.utils.MinigameResources.Companion.sendTo
@@ -587,7 +586,6 @@ public abstract class Minigame(
 
     private fun registerEvents() {
         this.events.register<ServerTickEvent> { this.onServerTick(it) }
-        this.events.register<PlayerTickEvent> { this.onPlayerTick(it) }
         this.events.register<PlayerJoinEvent> { this.onPlayerJoin(it) }
         this.events.register<PlayerDeathEvent> { this.onPlayerDeath(it) }
         this.events.register<PlayerDamageEvent>(1_000, BuiltInEventPhases.POST) { this.onPlayerDamage(it) }
@@ -600,46 +598,42 @@ public abstract class Minigame(
     private fun onServerTick(event: ServerTickEvent) {
         this.tickrate.tick()
         this.ui.tick(event.server)
+        this.stats.incrementAll(this.players, ArcadeStats.PLAY_TIME)
         if (this.ticking) {
             this.uptime++
             this.scheduler.tick()
         }
     }
 
-    private fun onPlayerTick(event: PlayerTickEvent) {
-        val (player) = event
-        this.stats.getOrCreateStat(player, ArcadeStats.PLAY_TIME).increment()
-    }
-
     private fun onPlayerJoin(event: PlayerJoinEvent) {
         val (player) = event
-        this.stats.getOrCreateStat(player, ArcadeStats.RELOGS).increment()
+        this.stats.increment(player, ArcadeStats.RELOGS)
     }
 
     private fun onPlayerDeath(event: PlayerDeathEvent) {
-        this.stats.getOrCreateStat(event.player, ArcadeStats.DEATHS).increment()
+        this.stats.increment(event.player, ArcadeStats.DEATHS)
 
         val killer = event.player.getKillCreditWith(event.source)
         if (killer is ServerPlayer && this.players.has(killer)) {
-            this.stats.getOrCreateStat(killer, ArcadeStats.KILLS).increment()
+            this.stats.increment(killer, ArcadeStats.KILLS)
         }
     }
 
     private fun onPlayerDamage(event: PlayerDamageEvent) {
         val (player, source, amount) = event
         if (amount > 0 && amount < 3.4028235E37F) {
-            this.stats.getOrCreateStat(player, ArcadeStats.DAMAGE_TAKEN).increment(amount)
+            this.stats.add(player, ArcadeStats.DAMAGE_TAKEN, amount)
 
             val attacker = source.entity
             if (attacker is ServerPlayer && this.players.has(attacker)) {
-                this.stats.getOrCreateStat(attacker, ArcadeStats.DAMAGE_DEALT).increment(amount)
+                this.stats.add(attacker, ArcadeStats.DAMAGE_DEALT, amount)
             }
         }
     }
 
     private fun onPlayerHeal(event: PlayerHealEvent) {
         val (player, healAmount) = event
-        this.stats.getOrCreateStat(player, ArcadeStats.DAMAGE_HEALED).increment(healAmount)
+        this.stats.add(player, ArcadeStats.DAMAGE_HEALED, healAmount)
     }
 
     private fun onPlayerAdd(event: MinigameAddPlayerEvent) {
@@ -181,11 +181,14 @@ public object Minigames: ModInitializer {
     internal fun register(minigame: Minigame) {
         this.ALL[minigame.uuid] = minigame
         this.BY_ID.put(minigame.id, minigame)
+        // Injected listeners depend on the running minigames
+        GlobalEventHandler.invalidate()
     }
 
     internal fun unregister(minigame: Minigame) {
         this.ALL.remove(minigame.uuid)
         this.BY_ID[minigame.id].remove(minigame)
+        GlobalEventHandler.invalidate()
 
         Util.ioPool().execute {
             val path = minigame.getSavePath()
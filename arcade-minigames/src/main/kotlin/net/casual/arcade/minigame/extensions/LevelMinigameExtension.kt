@@ -35,6 +35,17 @@ internal class LevelMinigameExtension(
         return this.minigames.filterTo(ReferenceLinkedOpenHashSet()) { it.levels.has(this.level, pos) }
     }
 
+    internal fun getMinigamesUnsafe(): Set<Minigame> {
+        return this.minigames
+    }
+
+    internal fun hasMinigame(minigame: Minigame, pos: BlockPos?): Boolean {
+        if (!this.minigames.contains(minigame)) {
+            return false
+        }
+        return pos == null || minigame.levels.has(this.level, pos)
+    }
+
     internal fun addMinigame(minigame: Minigame) {
         this.minigames.add(minigame)
     }
@@ -12,6 +12,7 @@ import net.casual.arcade.events.GlobalEventHandler
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.player.PlayerAttributeUpdatedEvent
 import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent
+import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.registerPacket
 import net.casual.arcade.events.server.player.PlayerTickEvent
 import net.casual.arcade.extensions.DataExtension
 import net.casual.arcade.extensions.PlayerExtension
@@ -152,7 +153,9 @@ public class PlayerMovementRestrictionExtension(player: ServerPlayer): PlayerExt
                 it.player.getExtension<PlayerMovementRestrictionExtension>().tick()
             }
             GlobalEventHandler.Server.register<PlayerAttributeUpdatedEvent>(::onPlayerAttributeUpdated)
-            GlobalEventHandler.Server.register<PlayerClientboundPacketEvent>(::onPlayerClientboundPacket)
+            GlobalEventHandler.Server.registerPacket<ClientboundUpdateAttributesPacket> { event, _ ->
+                onPlayerClientboundPacket(event)
+            }
         }
 
         private fun onPlayerAttributeUpdated(event: PlayerAttributeUpdatedEvent) {
@@ -5,15 +5,17 @@
 package net.casual.arcade.minigame.managers
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent
+import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.registerPacket
 import net.casual.arcade.events.server.player.PlayerLeaveEvent
 import net.casual.arcade.minigame.Minigame
 import net.casual.arcade.minigame.events.MinigameAddPlayerEvent
 import net.casual.arcade.minigame.events.MinigameRemovePlayerEvent
 import net.casual.arcade.utils.AdvancementUtils.copyWithoutToast
-import net.casual.arcade.utils.PlayerUtils.grantAdvancementSilently
-import net.casual.arcade.utils.PlayerUtils.revokeAdvancement
+import net.casual.arcade.utils.PlayerUtils.grantAdvancementsSilently
+import net.casual.arcade.utils.PlayerUtils.revokeAdvancements
 import net.minecraft.advancements.AdvancementHolder
 import net.minecraft.advancements.AdvancementNode
 import net.minecraft.advancements.AdvancementTree
@@ -37,6 +39,7 @@ public class MinigameAdvancementManager(
 ) {
     private val tree = AdvancementTree()
     private val reloaded = Object2ObjectOpenHashMap<UUID, Set<ResourceLocation>>()
+    private val toastless = Object2ObjectOpenHashMap<ResourceLocation, AdvancementHolder>()
 
     init {
         this.minigame.events.register<MinigameAddPlayerEvent> { event ->
@@ -48,7 +51,7 @@ public class MinigameAdvancementManager(
         this.minigame.events.register<PlayerLeaveEvent> { (player) ->
             this.reloaded.remove(player.uuid)
         }
-        this.minigame.events.register<PlayerClientboundPacketEvent>(this::onPlayerClientboundPacket)
+        this.minigame.events.registerPacket<ClientboundUpdateAdvancementsPacket>(listener = this::onUpdateAdvancements)
     }
 
     /**
@@ -60,6 +63,7 @@ public class MinigameAdvancementManager(
         this.tree.addAll(listOf(advancement))
         val node = this.tree.get(advancement) ?: return
         TreeNodePosition.run(node.root())
+        this.updateToastless(node.root())
     }
 
     /**
@@ -74,6 +78,7 @@ public class MinigameAdvancementManager(
             if (node.holder().value().display().isPresent) {
                 TreeNodePosition.run(node)
             }
+            this.updateToastless(node)
         }
     }
 
@@ -98,41 +103,45 @@ public class MinigameAdvancementManager(
     public fun reloadFor(player: ServerPlayer) {
         val holders = this.minigame.data.getAdvancements(player.uuid)
         if (holders.isNotEmpty()) {
-            this.reloaded[player.uuid] = holders.mapTo(HashSet()) { it.id }
-            for (holder in holders) {
-                player.grantAdvancementSilently(holder)
-            }
+            this.reloaded[player.uuid] = holders.mapTo(ObjectOpenHashSet()) { it.id }
+            player.grantAdvancementsSilently(holders)
         }
     }
 
     private fun unloadFor(player: ServerPlayer) {
         this.reloaded.remove(player.uuid)
-        for (advancement in this.tree.nodes()) {
-            player.revokeAdvancement(advancement.holder())
-        }
+        player.revokeAdvancements(this.tree.nodes().map { it.holder() })
     }
 
-    private fun onPlayerClientboundPacket(event: PlayerClientboundPacketEvent) {
-        val (player, packet) = event
-        if (packet !is ClientboundUpdateAdvancementsPacket) {
-            return
+    private fun updateToastless(root: AdvancementNode) {
+        // Toast-less copies are created once per tree, and shared between all players,
+        // positions are only known after the tree layout has been run
+        val nodes = ArrayDeque<AdvancementNode>()
+        nodes.add(root)
+        while (nodes.isNotEmpty()) {
+            val node = nodes.removeFirst()
+            val holder = node.holder()
+            this.toastless[holder.id] = holder.copyWithoutToast()
+            nodes.addAll(node.children())
         }
+    }
 
-        val reloaded = this.reloaded.remove(player.uuid) ?: return
-        if (packet.shouldReset()) {
+    private fun onUpdateAdvancements(event: PlayerClientboundPacketEvent, packet: ClientboundUpdateAdvancementsPacket) {
+        val reloaded = this.reloaded.remove(event.player.uuid) ?: return
+        if (packet.shouldReset() || packet.added.none { reloaded.contains(it.id) }) {
             return
         }
 
-        val copy = ArrayList<AdvancementHolder>()
+        val copy = ArrayList<AdvancementHolder>(packet.added.size)
         for (added in packet.added) {
             if (!reloaded.contains(added.id)) {
                 copy.add(added)
                 continue
             }
-            copy.add(added.copyWithoutToast())
+            copy.add(this.toastless[added.id] ?: added.copyWithoutToast())
         }
         event.packet = ClientboundUpdateAdvancementsPacket(
             false, copy, packet.removed, packet.progress, packet.shouldShowAdvancements()
         )
     }
-}
\ No newline at end of file
+}
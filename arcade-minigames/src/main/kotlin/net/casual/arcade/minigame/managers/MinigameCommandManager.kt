@@ -11,6 +11,7 @@ import com.mojang.brigadier.tree.LiteralCommandNode
 import net.casual.arcade.commands.CommandTree
 import net.casual.arcade.commands.ducks.DeletableCommand
 import net.casual.arcade.commands.literal
+import net.casual.arcade.commands.manager.CommandTreeSender
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.block.CommandBlockExecuteEvent
 import net.casual.arcade.events.server.player.PlayerCommandEvent
@@ -18,6 +19,7 @@ import net.casual.arcade.events.server.player.PlayerCommandSuggestionsEvent
 import net.casual.arcade.events.server.player.PlayerSendCommandsEvent
 import net.casual.arcade.minigame.Minigame
 import net.casual.arcade.minigame.events.*
+import net.casual.arcade.minigame.utils.MinigameUtils
 import net.minecraft.commands.CommandBuildContext
 import net.minecraft.commands.CommandSourceStack
 import net.minecraft.server.level.ServerPlayer
@@ -36,9 +38,19 @@ public class MinigameCommandManager(
 ) {
     private val dispatcher = CommandDispatcher<CommandSourceStack>()
 
+    // Whether the command tree may be shared between players with the same roles,
+    // this is not the case if any command has a player specific requirement.
+    // Admin or permission requirements are covered by the role flags cache key.
+    private var shareable = true
+
     init {
         this.minigame.events.register<PlayerSendCommandsEvent> {
             it.addCustomCommandNode(this.dispatcher.root)
+            if (this.shareable) {
+                it.addCacheKey(this.minigame.players.getRoleFlags(it.player))
+            } else {
+                it.preventSharing()
+            }
         }
         this.minigame.events.register<PlayerCommandEvent>(this::onPlayerCommand)
         this.minigame.events.register<CommandBlockExecuteEvent>(this::onBlockCommand)
@@ -100,7 +112,11 @@ public class MinigameCommandManager(
      */
     public fun unregister(name: String) {
         if ((this.dispatcher as DeletableCommand).`arcade$delete`(name)) {
-            val command = this.getGlobalMinigameCommand()?.getChild(this.minigame.uuid.toString()) ?: return
+            val command = this.getGlobalMinigameCommand()?.getChild(this.minigame.uuid.toString())
+            if (command == null) {
+                this.resendCommands()
+                return
+            }
             (command as DeletableCommand).`arcade$delete`(name)
             this.resendGlobalCommands()
         }
@@ -122,7 +138,11 @@ public class MinigameCommandManager(
             global?.`arcade$delete`(name)
         }
 
-        this.resendGlobalCommands()
+        if (global == null) {
+            this.resendCommands()
+        } else {
+            this.resendGlobalCommands()
+        }
     }
 
     /**
@@ -136,14 +156,28 @@ public class MinigameCommandManager(
             .map { it.literal }
     }
 
+    /**
+     * This method resends the command tree to all players
+     * in the minigame.
+     *
+     * The command trees are not sent immediately, instead
+     * they are resent once at the end of the tick.
+     *
+     * @see CommandTreeSender
+     */
     public fun resendCommands() {
+        this.updateShareable()
         for (player in this.minigame.players) {
             this.resendCommandsTo(player)
         }
     }
 
     private fun registerLiterals(literals: Collection<String>) {
-        val global = this.getGlobalMinigameCommand() ?: return
+        val global = this.getGlobalMinigameCommand()
+        if (global == null) {
+            this.resendCommands()
+            return
+        }
 
         val node = CommandTree.createLiteral<CommandSourceStack>(this.minigame.uuid.toString()) {
             for (literal in literals) {
@@ -155,13 +189,18 @@ public class MinigameCommandManager(
     }
 
     private fun resendGlobalCommands() {
-        for (player in this.minigame.server.playerList.players) {
-            this.resendCommandsTo(player)
+        this.updateShareable()
+        CommandTreeSender.resendAll()
+    }
+
+    private fun updateShareable() {
+        this.shareable = !CommandTreeSender.hasPlayerSpecificRequirements(this.dispatcher.root) {
+            it is MinigameUtils.AdminOrPermissionRequirement
         }
     }
 
     private fun resendCommandsTo(player: ServerPlayer) {
-        this.minigame.server.commands.sendCommands(player)
+        CommandTreeSender.resend(player)
     }
 
     private fun getGlobalMinigameCommand(): CommandNode<CommandSourceStack>? {
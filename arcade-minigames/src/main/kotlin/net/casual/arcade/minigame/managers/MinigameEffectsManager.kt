@@ -4,21 +4,20 @@
  */
 package net.casual.arcade.minigame.managers
 
-import com.google.common.collect.HashMultimap
-import com.google.common.collect.Multimap
 import eu.pb4.polymer.virtualentity.api.tracker.EntityTrackedData
+import it.unimi.dsi.fastutil.ints.IntArrayList
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.ServerTickEvent
-import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent
+import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.registerPacket
 import net.casual.arcade.events.server.player.PlayerDimensionChangeEvent
+import net.casual.arcade.events.server.player.PlayerLeaveEvent
 import net.casual.arcade.events.server.player.PlayerRespawnEvent
 import net.casual.arcade.minigame.Minigame
-import net.casual.arcade.minigame.events.MinigameAddPlayerEvent
-import net.casual.arcade.minigame.events.MinigameRemovePlayerEvent
+import net.casual.arcade.minigame.events.*
 import net.casual.arcade.visuals.utils.modifySharedFlags
 import net.casual.arcade.utils.ResourceUtils
-import net.casual.arcade.utils.asClientGamePacket
-import net.casual.arcade.utils.modify
 import net.casual.arcade.visuals.predicate.EntityObserverPredicate
 import net.casual.arcade.visuals.predicate.PlayerObserverPredicate
 import net.casual.arcade.visuals.predicate.PlayerObserverPredicate.Companion.toPlayer
@@ -28,6 +27,7 @@ import net.minecraft.network.syncher.SynchedEntityData.DataValue
 import net.minecraft.server.level.ServerPlayer
 import net.minecraft.world.effect.MobEffectInstance
 import net.minecraft.world.effect.MobEffectInstance.INFINITE_DURATION
+import net.minecraft.world.effect.MobEffects
 import net.minecraft.world.effect.MobEffects.NIGHT_VISION
 import net.minecraft.world.entity.Entity
 import java.util.*
@@ -38,25 +38,59 @@ import java.util.*
  * This includes whether entities are glowing or invisible,
  * as well as whether a player has fullbright (night vision).
  *
+ * When glowing or invisibility is tracked every tick the
+ * observer relationships are stored in a bit matrix indexed
+ * by player slot. Only the rows and columns of players whose
+ * state has changed are re-evaluated, a player's state is
+ * considered changed when they join or leave, change team,
+ * game mode, dimension, or glowing and invisibility effects,
+ * have their tags or role changed, or are explicitly
+ * invalidated, see [invalidate].
+ *
  * @see Minigame.effects
  */
 public class MinigameEffectsManager(
     private val minigame: Minigame
 ) {
-    private var glowingTracker: Multimap<UUID, UUID>? = null
-    private var invisibleTracker: Multimap<UUID, UUID>? = null
+    private var glowingTracker: ObserverMatrix? = null
+    private var invisibleTracker: ObserverMatrix? = null
 
     private var glowing = EntityObserverPredicate.never().toPlayer()
     private var invisible = EntityObserverPredicate.never().toPlayer()
 
     private val frozen = HashSet<UUID>()
 
+    private val slots = Object2IntOpenHashMap<UUID>().apply { defaultReturnValue(-1) }
+    private val free = IntArrayList()
+    private val active = BitSet()
+    private val dirty = BitSet()
+    private val flipped = LongLinkedOpenHashSet()
+    private var players = arrayOfNulls<ServerPlayer>(INITIAL_CAPACITY)
+    private var signatures = IntArray(INITIAL_CAPACITY)
+    private var allDirty = false
+
     init {
-        this.minigame.events.register<PlayerClientboundPacketEvent> { this.onPlayerPacket(it) }
+        this.minigame.events.registerPacket<ClientboundUpdateMobEffectPacket> { event, packet ->
+            event.packet = this.updateMobEffectPacket(event.player, packet)
+        }
+        this.minigame.events.registerPacket<ClientboundAddEntityPacket> { event, packet ->
+            event.packet = this.updateAddEntityPacket(event.player, packet)
+        }
+        this.minigame.events.registerPacket<ClientboundSetEntityDataPacket> { event, packet ->
+            event.packet = packet.modifySharedFlags(event.player, this::modifySharedEntityFlags)
+        }
         this.minigame.events.register<PlayerDimensionChangeEvent> { this.updatePlayerFullbright(it.player) }
         this.minigame.events.register<MinigameAddPlayerEvent> { this.updatePlayerFullbright(it.player) }
         this.minigame.events.register<PlayerRespawnEvent> { this.updatePlayerFullbright(it.player) }
-        this.minigame.events.register<MinigameRemovePlayerEvent> { this.removeFullbright(it.player) }
+        this.minigame.events.register<MinigameRemovePlayerEvent> { this.onPlayerRemove(it.player) }
+        this.minigame.events.register<PlayerLeaveEvent> { this.freeSlot(it.player) }
+        this.minigame.events.register<MinigameSetPlayingEvent> { this.invalidate(it.player) }
+        this.minigame.events.register<MinigameSetSpectatingEvent> { this.invalidate(it.player) }
+        this.minigame.events.register<MinigameAddAdminEvent> { this.invalidate(it.player) }
+        this.minigame.events.register<MinigameRemoveAdminEvent> { this.invalidate(it.player) }
+        this.minigame.events.register<MinigameAddTagEvent> { this.invalidate(it.player) }
+        this.minigame.events.register<MinigameRemoveTagEvent> { this.invalidate(it.player) }
+        this.minigame.events.register<PlayerRespawnEvent> { this.invalidate(it.player) }
         this.minigame.events.register<ServerTickEvent> { this.tickTrackers() }
     }
 
@@ -109,7 +143,8 @@ public class MinigameEffectsManager(
             player.setGlowingTag(!player.hasGlowingTag())
         }
         if (tick) {
-            this.glowingTracker = HashMultimap.create()
+            this.glowingTracker = ObserverMatrix(predicate)
+            this.allDirty = true
         } else {
             this.glowingTracker = null
         }
@@ -128,12 +163,41 @@ public class MinigameEffectsManager(
             player.isInvisible = !player.isInvisible
         }
         if (tick) {
-            this.invisibleTracker = HashMultimap.create()
+            this.invisibleTracker = ObserverMatrix(predicate)
+            this.allDirty = true
         } else {
             this.invisibleTracker = null
         }
     }
 
+    /**
+     * This marks a player's glowing and invisible state as
+     * changed, both as an observee and as an observer.
+     *
+     * The tracked predicates will be re-evaluated for the
+     * player on the next tick. You should call this if your
+     * predicates depend on state that isn't tracked automatically.
+     *
+     * @param player The player to invalidate.
+     */
+    public fun invalidate(player: ServerPlayer) {
+        val slot = this.slots.getInt(player.uuid)
+        if (slot >= 0) {
+            this.dirty.set(slot)
+        }
+    }
+
+    /**
+     * This marks every player's glowing and invisible state
+     * as changed.
+     *
+     * The tracked predicates will be re-evaluated for all
+     * players on the next tick.
+     */
+    public fun invalidateAll() {
+        this.allDirty = true
+    }
+
     public fun tickFreeze(entity: Entity) {
         this.frozen.add(entity.uuid)
     }
@@ -168,82 +232,160 @@ public class MinigameEffectsManager(
 
     private fun tickTrackers() {
         val glowing = this.glowingTracker
-        val players = lazy { this.minigame.players.all }
-        val updated = HashMultimap.create<UUID, UUID>()
+        val invisible = this.invisibleTracker
+        if (glowing == null && invisible == null) {
+            return
+        }
+
+        this.updateSlots()
+        if (this.allDirty) {
+            this.dirty.or(this.active)
+            this.allDirty = false
+        }
+        if (this.dirty.isEmpty) {
+            return
+        }
+
         if (glowing != null) {
-            this.glowingTracker = this.tickTracker(this.glowing, glowing, players, updated)
+            this.tickTracker(glowing)
         }
-        val invisible = this.invisibleTracker
         if (invisible != null) {
-            this.invisibleTracker = this.tickTracker(this.invisible, invisible, players, updated)
+            this.tickTracker(invisible)
         }
+        this.dirty.clear()
+
+        val iterator = this.flipped.iterator()
+        while (iterator.hasNext()) {
+            val packed = iterator.nextLong()
+            val observee = this.players[(packed ushr 32).toInt()]
+            val observer = this.players[packed.toInt()]
+            if (observee != null && observer != null) {
+                this.forceUpdate(observee, observer)
+            }
+        }
+        this.flipped.clear()
     }
 
-    private fun tickTracker(
-        predicate: PlayerObserverPredicate,
-        previous: Multimap<UUID, UUID>,
-        players: Lazy<List<ServerPlayer>>,
-        updated: Multimap<UUID, UUID>
-    ): HashMultimap<UUID, UUID> {
-        val next = HashMultimap.create<UUID, UUID>()
-        for (observee in players.value) {
-            for (observer in players.value) {
-                val bool = predicate.observable(observee, observer)
-                if (bool) {
-                    next.put(observee.uuid, observer.uuid)
-                }
-                if (bool != previous.containsEntry(observee.uuid, observer.uuid)) {
-                    if (!updated.containsEntry(observee.uuid, observer.uuid)) {
-                        this.forceUpdate(observee, observer)
-                        updated.put(observee.uuid, observer.uuid)
-                    }
+    private fun tickTracker(matrix: ObserverMatrix) {
+        var row = this.dirty.nextSetBit(0)
+        while (row >= 0) {
+            var column = this.active.nextSetBit(0)
+            while (column >= 0) {
+                this.updateTracker(matrix, row, column)
+                column = this.active.nextSetBit(column + 1)
+            }
+            row = this.dirty.nextSetBit(row + 1)
+        }
+
+        var column = this.dirty.nextSetBit(0)
+        while (column >= 0) {
+            row = this.active.nextSetBit(0)
+            while (row >= 0) {
+                // Dirty rows have already been fully evaluated
+                if (!this.dirty.get(row)) {
+                    this.updateTracker(matrix, row, column)
                 }
+                row = this.active.nextSetBit(row + 1)
             }
+            column = this.dirty.nextSetBit(column + 1)
         }
-        return next
     }
 
-    private fun updatePlayerFullbright(player: ServerPlayer) {
-        if (this.hasFullbright(player)) {
-            player.connection.send(ClientboundUpdateMobEffectPacket(player.id, INFINITE_NIGHT_VISION, false))
+    private fun updateTracker(matrix: ObserverMatrix, observee: Int, observer: Int) {
+        val value = matrix.predicate.observable(this.players[observee]!!, this.players[observer]!!)
+        if (matrix.set(observee, observer, value)) {
+            this.flipped.add((observee.toLong() shl 32) or observer.toLong())
         }
     }
 
-    private fun onPlayerPacket(event: PlayerClientboundPacketEvent) {
-        event.packet = this.updatePacket(event.player, event.packet)
-    }
+    private fun updateSlots() {
+        for (player in this.minigame.players) {
+            var slot = this.slots.getInt(player.uuid)
+            if (slot < 0) {
+                slot = this.allocateSlot(player)
+            } else if (this.players[slot] !== player) {
+                this.players[slot] = player
+                this.dirty.set(slot)
+            }
 
-    private fun updatePacket(player: ServerPlayer, packet: Packet<*>): Packet<ClientGamePacketListener> {
-        if (packet is ClientboundBundlePacket) {
-            return packet.modify(player, this::updatePacket)
+            val signature = this.getSignature(player)
+            if (this.signatures[slot] != signature) {
+                this.signatures[slot] = signature
+                this.dirty.set(slot)
+            }
         }
+    }
 
-        if (packet is ClientboundUpdateMobEffectPacket) {
-            if (packet.entityId == player.id && packet.effect.value() == NIGHT_VISION.value() && this.hasFullbright(player)) {
-                return ClientboundUpdateMobEffectPacket(player.id, INFINITE_NIGHT_VISION, false)
-            }
-            return packet
+    private fun allocateSlot(player: ServerPlayer): Int {
+        val slot = if (this.free.isEmpty) this.slots.size else this.free.removeInt(this.free.size - 1)
+        if (slot >= this.players.size) {
+            val capacity = maxOf(slot + 1, this.players.size * 2)
+            this.players = this.players.copyOf(capacity)
+            this.signatures = this.signatures.copyOf(capacity)
         }
+        this.slots.put(player.uuid, slot)
+        this.players[slot] = player
+        this.signatures[slot] = this.getSignature(player)
+        this.active.set(slot)
+        this.dirty.set(slot)
+        return slot
+    }
 
-        // We need to check this packet also, because data won't be
-        // sent to the client if there is no dirty data
-        if (packet is ClientboundAddEntityPacket) {
-            val observee = player.level().getEntity(packet.id) ?: return packet
+    private fun getSignature(player: ServerPlayer): Int {
+        var signature = System.identityHashCode(player.team)
+        signature = 31 * signature + System.identityHashCode(player.level())
+        signature = 31 * signature + player.gameMode.gameModeForPlayer.id
+        signature = 31 * signature + if (player.hasEffect(MobEffects.GLOWING)) 1 else 0
+        signature = 31 * signature + if (player.hasEffect(MobEffects.INVISIBILITY)) 1 else 0
+        return signature
+    }
 
-            val list = ArrayList<Packet<ClientGamePacketListener>>(2)
-            this.forceUpdate(observee, player, list::add)
-            if (list.isNotEmpty()) {
-                list.add(0, packet)
-                return ClientboundBundlePacket(list)
-            }
-            return packet
+    private fun onPlayerRemove(player: ServerPlayer) {
+        this.removeFullbright(player)
+        this.freeSlot(player)
+    }
+
+    private fun freeSlot(player: ServerPlayer) {
+        // Players that rejoin are re-allocated a slot on the next tick
+        val slot = this.slots.removeInt(player.uuid)
+        if (slot >= 0) {
+            this.glowingTracker?.clear(slot)
+            this.invisibleTracker?.clear(slot)
+            this.players[slot] = null
+            this.active.clear(slot)
+            this.dirty.clear(slot)
+            this.free.add(slot)
+        }
+    }
+
+    private fun updatePlayerFullbright(player: ServerPlayer) {
+        if (this.hasFullbright(player)) {
+            player.connection.send(ClientboundUpdateMobEffectPacket(player.id, INFINITE_NIGHT_VISION, false))
         }
+    }
 
-        if (packet is ClientboundSetEntityDataPacket) {
-            return packet.modifySharedFlags(player, this::modifySharedEntityFlags)
+    private fun updateMobEffectPacket(
+        player: ServerPlayer,
+        packet: ClientboundUpdateMobEffectPacket
+    ): Packet<ClientGamePacketListener> {
+        if (packet.entityId == player.id && packet.effect.value() == NIGHT_VISION.value() && this.hasFullbright(player)) {
+            return ClientboundUpdateMobEffectPacket(player.id, INFINITE_NIGHT_VISION, false)
         }
+        return packet
+    }
+
+    // We need to check this packet also, because data won't be
+    // sent to the client if there is no dirty data
+    private fun updateAddEntityPacket(player: ServerPlayer, packet: ClientboundAddEntityPacket): Packet<ClientGamePacketListener> {
+        val observee = player.level().getEntity(packet.id) ?: return packet
 
-        return packet.asClientGamePacket()
+        val list = ArrayList<Packet<ClientGamePacketListener>>(2)
+        this.forceUpdate(observee, player, list::add)
+        if (list.isNotEmpty()) {
+            list.add(0, packet)
+            return ClientboundBundlePacket(list)
+        }
+        return packet
     }
 
     private fun enableFlag(flags: Byte, flag: Int): Byte {
@@ -265,7 +407,41 @@ public class MinigameEffectsManager(
         return modified
     }
 
+    private class ObserverMatrix(val predicate: PlayerObserverPredicate) {
+        private var rows = arrayOfNulls<BitSet>(INITIAL_CAPACITY)
+
+        fun set(observee: Int, observer: Int, value: Boolean): Boolean {
+            if (observee >= this.rows.size) {
+                this.rows = this.rows.copyOf(maxOf(observee + 1, this.rows.size * 2))
+            }
+            var row = this.rows[observee]
+            if (row == null) {
+                if (!value) {
+                    return false
+                }
+                row = BitSet()
+                this.rows[observee] = row
+            }
+            if (row.get(observer) == value) {
+                return false
+            }
+            row.set(observer, value)
+            return true
+        }
+
+        fun clear(slot: Int) {
+            for (row in this.rows) {
+                row?.clear(slot)
+            }
+            if (slot < this.rows.size) {
+                this.rows[slot]?.clear()
+            }
+        }
+    }
+
     private companion object {
+        const val INITIAL_CAPACITY = 16
+
         val INFINITE_NIGHT_VISION = MobEffectInstance(NIGHT_VISION, INFINITE_DURATION, 0, false, false, false)
 
         val FULL_BRIGHT = ResourceUtils.arcade("full_bright")
@@ -4,6 +4,7 @@
  */
 package net.casual.arcade.minigame.managers
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap
 import net.casual.arcade.events.*
 import net.casual.arcade.events.EventListener
 import net.casual.arcade.events.common.Event
@@ -11,6 +12,7 @@ import net.casual.arcade.events.server.level.LevelEvent
 import net.casual.arcade.events.server.level.LocatedLevelEvent
 import net.casual.arcade.events.server.player.PlayerEvent
 import net.casual.arcade.minigame.Minigame
+import net.casual.arcade.minigame.annotation.ListenerFlags
 import net.casual.arcade.minigame.annotation.ListenerFlags.DEFAULT
 import net.casual.arcade.minigame.annotation.ListenerFlags.HAS_LEVEL
 import net.casual.arcade.minigame.annotation.ListenerFlags.HAS_PLAYER
@@ -21,7 +23,7 @@ import net.casual.arcade.minigame.annotation.ListenerFlags.IS_PLAYING
 import net.casual.arcade.minigame.annotation.ListenerFlags.IS_SPECTATOR
 import net.casual.arcade.minigame.events.MinigameEvent
 import net.casual.arcade.minigame.phase.Phase
-import java.util.*
+import java.util.function.BooleanSupplier
 import java.util.function.Consumer
 
 /**
@@ -58,8 +60,9 @@ import java.util.function.Consumer
 public class MinigameEventHandler(
     private val minigame: Minigame
 ): ListenerRegistry {
-    private val global = SimpleListenerRegistry()
-    private val injected = SimpleListenerRegistry()
+    private val global = SimpleListenerRegistry(this.minigame)
+    private val injected = SimpleListenerRegistry(this.minigame)
+    private val filters = Int2ObjectOpenHashMap<MinigameEventFilter>()
 
     /**
      * This method gets all the [EventListener]s for a given
@@ -165,6 +168,45 @@ public class MinigameEventHandler(
         this.registerFiltered(type, listener, flags = flags)
     }
 
+    /**
+     * Registers a polymorphic event listener.
+     *
+     * This allows you to register a callback to a specific event type.
+     * This callback will fire when instances of the given type, **or
+     * any of its subtypes**, are fired.
+     *
+     * This will filter events for the given minigame, see
+     * [MinigameEventHandler] documentation for more details.
+     *
+     * @param T The type of event.
+     * @param type The class of the event that you want to listen to.
+     * @param listener The callback which will be invoked when the event is fired.
+     */
+    override fun <T: Event> registerPolymorphic(type: Class<T>, listener: EventListener<T>) {
+        this.registerPolymorphic(type, DEFAULT, listener)
+    }
+
+    /**
+     * Registers a polymorphic event listener.
+     *
+     * This allows you to register a callback to a specific event type.
+     * This callback will fire when instances of the given type, **or
+     * any of its subtypes**, are fired.
+     *
+     * This will filter events for the given minigame, see
+     * [MinigameEventHandler] documentation for more details.
+     * The [flags] are applied to each fired subtype, so registering
+     * a broad type like [Event] will still filter [PlayerEvent]s.
+     *
+     * @param T The type of event.
+     * @param type The class of the event that you want to listen to.
+     * @param flags The flags to filter the events by.
+     * @param listener The callback which will be invoked when the event is fired.
+     */
+    public fun <T: Event> registerPolymorphic(type: Class<T>, flags: Int, listener: EventListener<T>) {
+        this.registerFiltered(type, listener, flags = flags, polymorphic = true)
+    }
+
 
     /**
      * Registers an event listener for phased events.
@@ -226,18 +268,13 @@ public class MinigameEventHandler(
         listener: EventListener<T>
     ) {
         if (phases.isEmpty()) {
-            this.register(type, listener)
+            return this.registerFiltered(type, listener, flags = flags)
         }
-        val predicates = LinkedList<(T) -> Boolean>()
         if (phases.size == 1) {
-            predicates.add { this.minigame.phase == phases[0] }
-            return this.registerFiltered(type, listener, predicates)
+            val single = phases[0]
+            return this.registerFiltered(type, listener, { this.minigame.phase == single }, flags)
         }
-        predicates.add {
-            phases.any { this.minigame.phase == it }
-        }
-
-        return this.registerFiltered(type, listener, predicates, flags)
+        return this.registerFiltered(type, listener, { phases.any { this.minigame.phase == it } }, flags)
     }
 
     /**
@@ -301,11 +338,9 @@ public class MinigameEventHandler(
         flags: Int = DEFAULT,
         listener: EventListener<T>
     ) {
-        val predicates = ArrayList<(T) -> Boolean>()
-        predicates.add {
+        return this.registerFiltered(type, listener, {
             this.minigame.phase >= after && this.minigame.phase < before
-        }
-        return this.registerFiltered(type, listener, predicates, flags)
+        }, flags)
     }
 
     internal fun getInjectedProvider(): ListenerProvider {
@@ -320,61 +355,163 @@ public class MinigameEventHandler(
     private fun <T: Event> registerFiltered(
         type: Class<T>,
         listener: EventListener<T>,
-        predicates: MutableList<(T) -> Boolean> = LinkedList(),
-        flags: Int = DEFAULT
+        during: BooleanSupplier? = null,
+        flags: Int = DEFAULT,
+        polymorphic: Boolean = false
     ) {
-        var registry = this.global
-        if (PlayerEvent::class.java.isAssignableFrom(type)) {
-            if (this.hasFlag(flags, HAS_PLAYER)) {
-                registry = this.injected
-                predicates.add { this.minigame.players.has((it as PlayerEvent).player) }
+        if (polymorphic) {
+            // Subtypes may implement more filterable interfaces than the
+            // registered type, so the filter is resolved per event class.
+            // These can't be routed, so they're checked in the global registry.
+            val filtered = if (flags == 0 && during == null) {
+                listener
+            } else {
+                PolymorphicEventListener(listener, this.minigame, flags, during)
             }
-            if (this.hasFlag(flags, IS_PLAYING)) {
-                registry = this.injected
-                predicates.add { this.minigame.players.isPlaying((it as PlayerEvent).player) }
+            this.global.registerPolymorphic(type, filtered)
+            return
+        }
+
+        val mask = flags and getApplicableFlags(type)
+        var filter: MinigameEventFilter? = null
+        if (mask != 0) {
+            filter = this.filters.get(mask)
+            if (filter == null) {
+                filter = MinigameEventFilter(this.minigame, mask)
+                this.filters.put(mask, filter)
             }
-            if (this.hasFlag(flags, IS_SPECTATOR)) {
-                registry = this.injected
-                predicates.add { this.minigame.players.isSpectating((it as PlayerEvent).player) }
+        }
+        val registry = if (filter != null) this.injected else this.global
+        val filtered = if (filter == null && during == null) {
+            listener
+        } else {
+            FilteredEventListener(listener, filter, during)
+        }
+        registry.register(type, filtered)
+    }
+
+    /**
+     * A compiled filter for a combination of [ListenerFlags].
+     *
+     * The player, level, and minigame are each only extracted
+     * from the event once, and player roles are read from the
+     * cached role flags, see [MinigamePlayerManager.getRoleFlags].
+     */
+    private class MinigameEventFilter(
+        private val minigame: Minigame,
+        flags: Int
+    ) {
+        private val roles = flags and PLAYER_FLAGS
+        private val inLevelBounds = (flags and IN_LEVEL_BOUNDS) != 0
+        private val hasLevel = (flags and HAS_LEVEL) != 0
+        private val isMinigame = (flags and IS_MINIGAME) != 0
+
+        fun test(event: Event): Boolean {
+            if (this.roles != 0) {
+                val roles = this.minigame.players.getRoleFlags((event as PlayerEvent).player)
+                if ((roles and this.roles) != this.roles) {
+                    return false
+                }
             }
-            if (this.hasFlag(flags, IS_ADMIN)) {
-                registry = this.injected
-                predicates.add { this.minigame.players.isAdmin((it as PlayerEvent).player) }
+            if (this.inLevelBounds) {
+                val located = event as LocatedLevelEvent
+                if (!this.minigame.levels.has(located.level, located.pos)) {
+                    return false
+                }
+            }
+            if (this.hasLevel && !this.minigame.levels.has((event as LevelEvent).level)) {
+                return false
             }
+            if (this.isMinigame && this.minigame !== (event as MinigameEvent).minigame) {
+                return false
+            }
+            return true
         }
-        if (LocatedLevelEvent::class.java.isAssignableFrom(type)) {
-            if (this.hasFlag(flags, IN_LEVEL_BOUNDS)) {
-                registry = this.injected
-                predicates.add {
-                    val casted = it as LocatedLevelEvent
-                    this.minigame.levels.has(casted.level, casted.pos)
-                }
+    }
+
+    private class FilteredEventListener<T: Event>(
+        private val wrapped: EventListener<T>,
+        private val filter: MinigameEventFilter?,
+        private val during: BooleanSupplier?
+    ): EventListener<T> {
+        override val priority: Int
+            get() = this.wrapped.priority
+        override val phase: String
+            get() = this.wrapped.phase
+        override val requiresMainThread: Boolean
+            get() = this.wrapped.requiresMainThread
+        override val keys: Collection<Class<*>>?
+            get() = this.wrapped.keys
+
+        override fun invoke(event: T) {
+            if (this.during != null && !this.during.asBoolean) {
+                return
+            }
+            if (this.filter != null && !this.filter.test(event)) {
+                return
             }
+            this.wrapped.invoke(event)
         }
-        if (LevelEvent::class.java.isAssignableFrom(type)) {
-            if (this.hasFlag(flags, HAS_LEVEL)) {
-                registry = this.injected
-                predicates.add { this.minigame.levels.has((it as LevelEvent).level) }
+
+        override fun toString(): String {
+            return this.wrapped.toString()
+        }
+    }
+
+    private class PolymorphicEventListener<T: Event>(
+        private val wrapped: EventListener<T>,
+        private val minigame: Minigame,
+        private val flags: Int,
+        private val during: BooleanSupplier?
+    ): EventListener<T> {
+        private val filters = object: ClassValue<MinigameEventFilter>() {
+            override fun computeValue(type: Class<*>): MinigameEventFilter {
+                return MinigameEventFilter(minigame, flags and getApplicableFlags(type))
             }
         }
-        if (MinigameEvent::class.java.isAssignableFrom(type)) {
-            if (this.hasFlag(flags, IS_MINIGAME)) {
-                registry = this.injected
-                predicates.add { this.minigame === (it as MinigameEvent).minigame }
+
+        override val priority: Int
+            get() = this.wrapped.priority
+        override val phase: String
+            get() = this.wrapped.phase
+        override val requiresMainThread: Boolean
+            get() = this.wrapped.requiresMainThread
+        override val keys: Collection<Class<*>>?
+            get() = this.wrapped.keys
+
+        override fun invoke(event: T) {
+            if (this.during != null && !this.during.asBoolean) {
+                return
             }
+            if (!this.filters.get(event.javaClass).test(event)) {
+                return
+            }
+            this.wrapped.invoke(event)
         }
-        if (predicates.isEmpty()) {
-            registry.register(type, listener)
-            return
+
+        override fun toString(): String {
+            return this.wrapped.toString()
         }
-        registry.register(type, EventListener.of(listener.priority, listener.phase) { event ->
-            if (predicates.all { it(event) }) {
-                listener.invoke(event)
-            }
-        })
     }
 
-    private fun hasFlag(flags: Int, flag: Int): Boolean {
-        return (flags and flag) == flag
+    private companion object {
+        const val PLAYER_FLAGS = HAS_PLAYER or IS_PLAYING or IS_SPECTATOR or IS_ADMIN
+
+        fun getApplicableFlags(type: Class<*>): Int {
+            var applicable = 0
+            if (PlayerEvent::class.java.isAssignableFrom(type)) {
+                applicable = applicable or PLAYER_FLAGS
+            }
+            if (LocatedLevelEvent::class.java.isAssignableFrom(type)) {
+                applicable = applicable or IN_LEVEL_BOUNDS
+            }
+            if (LevelEvent::class.java.isAssignableFrom(type)) {
+                applicable = applicable or HAS_LEVEL
+            }
+            if (MinigameEvent::class.java.isAssignableFrom(type)) {
+                applicable = applicable or IS_MINIGAME
+            }
+            return applicable
+        }
     }
-}
\ No newline at end of file
+}
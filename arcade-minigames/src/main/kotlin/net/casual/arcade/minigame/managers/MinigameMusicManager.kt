@@ -5,7 +5,7 @@
 package net.casual.arcade.minigame.managers
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
-import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.ServerTickEvent
 import net.casual.arcade.events.server.player.PlayerDimensionChangeEvent
@@ -16,11 +16,13 @@ import net.casual.arcade.minigame.events.MinigameAddPlayerEvent
 import net.casual.arcade.minigame.events.MinigameRemovePlayerEvent
 import net.casual.arcade.minigame.utils.MinigameMusicProvider
 import net.casual.arcade.resources.event.PlayerPacksSuccessEvent
+import net.casual.arcade.utils.PlayerUtils.player
 import net.casual.arcade.utils.PlayerUtils.sendSound
 import net.casual.arcade.utils.TimeUtils.Ticks
 import net.casual.arcade.utils.impl.TimedSound
 import net.minecraft.core.Holder
 import net.minecraft.network.protocol.game.ClientboundStopSoundPacket
+import net.minecraft.resources.ResourceLocation
 import net.minecraft.server.level.ServerLevel
 import net.minecraft.server.level.ServerPlayer
 import net.minecraft.sounds.SoundEvent
@@ -29,22 +31,48 @@ import net.minecraft.sounds.SoundSource
 import net.minecraft.world.level.Level
 import java.util.*
 import kotlin.jvm.optionals.getOrNull
-import kotlin.math.min
+import kotlin.math.max
 
+/**
+ * This class manages the music played to players in a minigame.
+ *
+ * Music is provided by the [provider], tracks are timed in server
+ * ticks and player transitions are driven by a queue ordered by
+ * the tick each track ends, so only players whose tracks have
+ * ended are processed each tick.
+ *
+ * Players for whom the [provider] has no music are only asked again
+ * periodically, or when the music is [refreshed][refresh].
+ *
+ * @see Minigame.music
+ */
 public class MinigameMusicManager(
     private val minigame: Minigame
 ) {
     private val current = Object2ObjectOpenHashMap<UUID, PlayingSound>()
     private val interrupted = Object2ObjectOpenHashMap<UUID, PlayingSound>()
+    private val queue = PriorityQueue(Comparator.comparingLong<PlayingSound> { it.end })
+    private val waiting = ObjectLinkedOpenHashSet<UUID>()
+    private val idle = ObjectLinkedOpenHashSet<UUID>()
+
+    private val stopBiomeMusic = WeakHashMap<ServerLevel, List<ClientboundStopSoundPacket>>()
 
     private var suppressGameMusic = false
     private var running = false
+    private var ticks = 0L
 
     public var provider: MinigameMusicProvider = MinigameMusicProvider.EMPTY
+        set(value) {
+            field = value
+            this.refresh()
+        }
 
     init {
         this.minigame.events.register<ServerTickEvent> { this.tick() }
-        this.minigame.events.register<MinigameAddPlayerEvent> { (_, player) -> this.suppressGameMusic(player) }
+        this.minigame.events.register<MinigameAddPlayerEvent> { (_, player) ->
+            this.suppressGameMusic(player)
+            this.waiting.add(player.uuid)
+        }
         this.minigame.events.register<PlayerDimensionChangeEvent> { (player) -> this.interrupt(player) }
         this.minigame.events.register<PlayerRespawnEvent> { (player) -> this.interrupt(player) }
         this.minigame.events.register<PlayerPacksSuccessEvent> { (player) -> this.interrupt(player) }
@@ -54,12 +82,29 @@ public class MinigameMusicManager(
 
     public fun start() {
         this.running = true
+        for (player in this.minigame.players) {
+            this.waiting.add(player.uuid)
+        }
     }
 
     public fun stop() {
         this.running = false
         this.interrupted.putAll(this.current)
+        this.waiting.addAll(this.current.keys)
         this.current.clear()
+        this.queue.clear()
+    }
+
+    /**
+     * Asks the [provider] for music for any players who currently
+     * have none on the next tick, instead of waiting to retry.
+     *
+     * This should be called when the provider may now have music
+     * for players it previously had none for.
+     */
+    public fun refresh() {
+        this.waiting.addAll(this.idle)
+        this.idle.clear()
     }
 
     public fun suppressGameMusic(suppress: Boolean) {
@@ -70,6 +115,7 @@ public class MinigameMusicManager(
     }
 
     private fun tick() {
+        val now = ++this.ticks
         if (this.suppressGameMusic && this.minigame.server.tickCount % 200 == 0) {
             this.suppressGameMusic()
         }
@@ -78,38 +124,71 @@ public class MinigameMusicManager(
             return
         }
 
-        val now = System.currentTimeMillis()
-        for (player in this.minigame.players) {
-            val interrupted = this.interrupted.remove(player.uuid)
+        while (true) {
+            val ended = this.queue.peek()
+            if (ended == null || ended.end > now) {
+                break
+            }
+            this.queue.poll()
+            // The player's track may have been replaced or stopped
+            if (this.current[ended.uuid] !== ended) {
+                continue
+            }
+            val player = this.getPlayer(ended.uuid)
+            if (player == null) {
+                this.current.remove(ended.uuid)
+                continue
+            }
+            val next = this.provider.getNextMusicFor(player, ended.timed)
+            if (next != null) {
+                this.start(player, next)
+            } else {
+                this.current.remove(ended.uuid)
+                this.idle.add(ended.uuid)
+            }
+        }
+
+        if (now % IDLE_RETRY_TICKS == 0L) {
+            this.refresh()
+        }
+        if (this.waiting.isEmpty()) {
+            return
+        }
+        val iterator = this.waiting.iterator()
+        while (iterator.hasNext()) {
+            val uuid = iterator.next()
+            val player = this.getPlayer(uuid)
+            if (player == null) {
+                iterator.remove()
+                this.interrupted.remove(uuid)
+                continue
+            }
+
+            val interrupted = this.interrupted.remove(uuid)
             if (interrupted != null) {
-                val remaining = min((interrupted.end - now) / 50, 0).toInt().Ticks
+                val remaining = max(interrupted.end - now, 0L).toInt().Ticks
                 val next = this.provider.resumeMusicFor(player, interrupted.timed, remaining)
                 if (next != null) {
+                    iterator.remove()
                     this.start(player, next)
                     continue
                 }
             }
 
-            val current = this.current[player.uuid]
-            if (current == null) {
-                val next = this.provider.getNextMusicFor(player, null)
-                if (next != null) {
-                    this.start(player, next)
-                }
-            } else if (current.end < now) {
-                val next = this.provider.getNextMusicFor(player, current.timed)
-                if (next != null) {
-                    this.start(player, next)
-                } else {
-                    this.current.remove(player.uuid)
-                }
+            iterator.remove()
+            val next = this.provider.getNextMusicFor(player, null)
+            if (next != null) {
+                this.start(player, next)
+            } else {
+                this.idle.add(uuid)
             }
         }
     }
 
     private fun start(player: ServerPlayer, timed: TimedSound) {
-        val end = System.currentTimeMillis() + timed.duration.milliseconds
-        this.current[player.uuid] = PlayingSound(timed, end)
+        val playing = PlayingSound(player.uuid, timed, this.ticks + timed.duration.ticks)
+        this.current[player.uuid] = playing
+        this.queue.add(playing)
         player.sendSound(timed.sound)
     }
 
@@ -117,6 +196,9 @@ public class MinigameMusicManager(
         val playing = this.stop(player)
         if (playing != null) {
             this.interrupted[player.uuid] = playing
+            this.waiting.add(player.uuid)
+        } else if (this.minigame.players.has(player)) {
+            this.waiting.add(player.uuid)
         }
     }
 
@@ -132,13 +214,21 @@ public class MinigameMusicManager(
 
     private fun cancel(player: ServerPlayer): PlayingSound? {
         this.interrupted.remove(player.uuid)
+        this.waiting.remove(player.uuid)
+        this.idle.remove(player.uuid)
+        // Any queued entry becomes stale and is skipped when polled
         return this.current.remove(player.uuid)
     }
 
-    private fun suppressGameMusic(
-        player: ServerPlayer,
-        cached: MutableMap<ServerLevel, List<ClientboundStopSoundPacket>>
-    ) {
+    private fun getPlayer(uuid: UUID): ServerPlayer? {
+        val player = this.minigame.server.player(uuid) ?: return null
+        return if (this.minigame.players.has(player)) player else null
+    }
+
+    private fun suppressGameMusic(player: ServerPlayer) {
+        if (!this.suppressGameMusic) {
+            return
+        }
         if (player.level().dimension() == Level.END) {
             player.stopMusic(SoundEvents.MUSIC_END)
             player.stopMusic(SoundEvents.MUSIC_DRAGON)
@@ -151,47 +241,48 @@ public class MinigameMusicManager(
         player.stopMusic(SoundEvents.MUSIC_GAME)
         player.stopMusic(SoundEvents.MUSIC_UNDER_WATER)
 
-        // All the biome music
-        val packets = cached.computeIfAbsent(player.level()) { level ->
-            val biomes = level.chunkSource.generator.biomeSource.possibleBiomes()
-            val packets = ArrayList<ClientboundStopSoundPacket>()
-            for (biome in biomes) {
-                val entries = biome.value().backgroundMusic.getOrNull()?.unwrap()
-                if (entries.isNullOrEmpty()) {
-                    continue
-                }
-                for (entry in entries) {
-                    val music = entry.value()
-                    val key = music.event.unwrapKey()
-                    if (key.isEmpty) {
-                        continue
-                    }
-                    packets.add(ClientboundStopSoundPacket(key.get().location(), SoundSource.MUSIC))
-                }
-            }
-            packets
+        // All the biome music, the possible biomes of a level never change
+        // so these are cached for as long as the level is loaded
+        val packets = this.stopBiomeMusic.getOrPut(player.level()) {
+            this.createStopBiomeMusicPackets(player.level())
         }
         for (packet in packets) {
             player.connection.send(packet)
         }
     }
 
-    private fun suppressGameMusic(player: ServerPlayer) {
-        if (this.suppressGameMusic) {
-            this.suppressGameMusic(player, HashMap(1))
+    private fun suppressGameMusic() {
+        for (player in this.minigame.players) {
+            this.suppressGameMusic(player)
         }
     }
 
-    private fun suppressGameMusic() {
-        val cached = Reference2ObjectOpenHashMap<ServerLevel, List<ClientboundStopSoundPacket>>()
-        for (player in this.minigame.players) {
-            this.suppressGameMusic(player, cached)
+    private fun createStopBiomeMusicPackets(level: ServerLevel): List<ClientboundStopSoundPacket> {
+        val biomes = level.chunkSource.generator.biomeSource.possibleBiomes()
+        val locations = LinkedHashSet<ResourceLocation>()
+        for (biome in biomes) {
+            val entries = biome.value().backgroundMusic.getOrNull()?.unwrap()
+            if (entries.isNullOrEmpty()) {
+                continue
+            }
+            for (entry in entries) {
+                val key = entry.value().event.unwrapKey()
+                if (key.isPresent) {
+                    locations.add(key.get().location())
+                }
+            }
         }
+        return locations.map { ClientboundStopSoundPacket(it, SoundSource.MUSIC) }
     }
 
     private fun ServerPlayer.stopMusic(holder: Holder.Reference<SoundEvent>) {
         this.connection.send(ClientboundStopSoundPacket(holder.key().location(), SoundSource.MUSIC))
     }
 
-    private class PlayingSound(val timed: TimedSound, val end: Long)
+    private class PlayingSound(val uuid: UUID, val timed: TimedSound, val end: Long)
+
+    private companion object {
+        // How often players without music are asked for music again
+        const val IDLE_RETRY_TICKS = 100L
+    }
 }
\ No newline at end of file
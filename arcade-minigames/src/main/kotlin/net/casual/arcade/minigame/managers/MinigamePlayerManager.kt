@@ -5,13 +5,16 @@
 package net.casual.arcade.minigame.managers
 
 import com.mojang.authlib.GameProfile
+import it.unimi.dsi.fastutil.objects.ObjectArrayList
 import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet
-import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList
 import net.casual.arcade.events.GlobalEventHandler
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.ServerSaveEvent
 import net.casual.arcade.events.server.player.PlayerLeaveEvent
 import net.casual.arcade.minigame.Minigame
+import net.casual.arcade.minigame.annotation.ListenerFlags
 import net.casual.arcade.minigame.events.*
 import net.casual.arcade.minigame.mixins.PlayerListAccessor
 import net.casual.arcade.minigame.utils.MinigameUtils.getMinigame
@@ -19,7 +22,6 @@ import net.casual.arcade.minigame.utils.MinigameUtils.minigame
 import net.casual.arcade.utils.ArcadeUtils
 import net.casual.arcade.utils.PlayerUtils.levelServer
 import net.casual.arcade.utils.PlayerUtils.player
-import net.casual.arcade.utils.impl.ConcatenatedList.Companion.concat
 import net.casual.arcade.utils.math.location.Location.Companion.location
 import net.casual.arcade.utils.math.location.LocationWithLevel.Companion.asTeleportTransition
 import net.casual.arcade.utils.math.location.LocationWithLevel.Companion.locationWithLevel
@@ -42,7 +44,6 @@ import org.jetbrains.annotations.ApiStatus.Internal
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.*
-import java.util.stream.Stream
 import kotlin.io.path.createDirectories
 import kotlin.io.path.isRegularFile
 import kotlin.jvm.optionals.getOrNull
@@ -50,7 +51,18 @@ import kotlin.jvm.optionals.getOrNull
 public class MinigamePlayerManager(
     private val minigame: Minigame
 ): Iterable<ServerPlayer> {
-    private val connections: MutableSet<ServerGamePacketListenerImpl> = ReferenceLinkedOpenHashSet()
+    // Maps each tracked connection to its player's role flags, see ListenerFlags
+    private val connections = Reference2IntLinkedOpenHashMap<ServerGamePacketListenerImpl>()
+
+    // Role partitions of the connections, rebuilt lazily after any change
+    private var partitions: Partitions? = null
+
+    /**
+     * Incremented whenever the tracked players, their roles,
+     * or the offline profiles change.
+     */
+    internal var version = 0
+        private set
 
     private val data by lazy { DataManager(this.minigame.getSavePath().resolve("player-data")) }
 
@@ -61,9 +73,12 @@ public class MinigamePlayerManager(
     /**
      * This gets all the tracked players in this minigame.
      * This includes spectating and playing players.
+     *
+     * The returned list is an unmodifiable snapshot, it is
+     * cached until the players or their roles next change.
      */
     public val all: List<ServerPlayer>
-        get() = this.connections.map { it.player }
+        get() = this.getPartitions().all
 
     /**
      * This gets all the players that are currently
@@ -72,28 +87,28 @@ public class MinigamePlayerManager(
      * @return The list of playing players.
      */
     public val playing: List<ServerPlayer>
-        get() = this.streamPlayers().filter(this::isPlaying).toList()
+        get() = this.getPartitions().playing
 
     /**
      * This gets all the players that are currently
      * spectating in the minigame.
      */
     public val spectating: List<ServerPlayer>
-        get() = this.streamPlayers().filter(this::isSpectating).toList()
+        get() = this.getPartitions().spectating
 
     /**
      * This gets a list of all the players that are
      * admins, they may be either spectating or playing.
      */
     public val admins: List<ServerPlayer>
-        get() = this.streamPlayers().filter(this::isAdmin).toList()
+        get() = this.getPartitions().admins
 
     /**
      * Gets a list of all the non-admin players,
      * they may be either spectating or playing.
      */
     public val nonAdmins: List<ServerPlayer>
-        get() = this.streamPlayers().filter { !this.isAdmin(it) }.toList()
+        get() = this.getPartitions().nonAdmins
 
     /**
      * This gets all the player profiles that are playing this minigame,
@@ -102,7 +117,7 @@ public class MinigamePlayerManager(
      * @return All the player's profiles.
      */
     public val allProfiles: List<GameProfile>
-        get() = this.streamPlayers().map { it.gameProfile }.toList().concat(this.offlineProfiles)
+        get() = this.getPartitions().allProfiles
 
     /**
      * This gets all profiles of the player's that
@@ -111,7 +126,7 @@ public class MinigamePlayerManager(
      * @return All the offline player's profiles.
      */
     public val offlineProfiles: List<GameProfile>
-        get() = this.offlineGameProfiles.toList()
+        get() = this.getPartitions().offlineProfiles
 
 
     public val totalPlayerCount: Int
@@ -122,11 +137,11 @@ public class MinigamePlayerManager(
         get() = this.offlineGameProfiles.size
 
     public val playingPlayerCount: Int
-        get() = this.connections.count { this.isPlaying(it.player) }
+        get() = this.getPartitions().playing.size
     public val spectatingPlayerCount: Int
-        get() = this.connections.count { this.isSpectating(it.player) }
+        get() = this.getPartitions().spectating.size
     public val adminPlayerCount: Int
-        get() = this.connections.count { this.isAdmin(it.player) }
+        get() = this.getPartitions().admins.size
 
     public var keepPlayerData: Boolean = true
 
@@ -176,14 +191,14 @@ public class MinigamePlayerManager(
         }
 
         val hasMinigame = player.getMinigame() === this.minigame
-        if (this.offlineGameProfiles.remove(player.gameProfile) || hasMinigame) {
+        if (this.removeOfflineProfile(player.gameProfile) || hasMinigame) {
             val newPlayer = this.loadMinigamePlayer(player)
             if (!hasMinigame) {
                 ArcadeUtils.logger.warn("Player's minigame UUID didn't work?!")
                 newPlayer.minigame.setMinigame(this.minigame)
             }
 
-            this.connections.add(newPlayer.connection)
+            this.track(newPlayer)
             val existing = MinigameAddExistingPlayerEvent(this.minigame, newPlayer, spectating, admin)
             GlobalEventHandler.Server.broadcast(existing)
             var isSpectating = existing.spectating
@@ -214,7 +229,7 @@ public class MinigamePlayerManager(
             return true
         }
 
-        this.connections.add(player.connection)
+        this.track(player)
         val event = MinigameAddNewPlayerEvent(this.minigame, player, spectating, admin)
         GlobalEventHandler.Server.broadcast(event)
         if (!event.isCancelled()) {
@@ -237,7 +252,7 @@ public class MinigamePlayerManager(
             }
             return true
         }
-        this.connections.remove(player.connection)
+        this.untrack(player)
         return false
     }
 
@@ -253,17 +268,18 @@ public class MinigamePlayerManager(
     public fun remove(player: ServerPlayer): Boolean {
         this.minigame.tryInitialize()
 
-        val wasOffline = this.offlineGameProfiles.remove(player.gameProfile)
-        if (wasOffline || this.connections.contains(player.connection)) {
+        val wasOffline = this.removeOfflineProfile(player.gameProfile)
+        if (wasOffline || this.connections.containsKey(player.connection)) {
             if (wasOffline) {
                 ArcadeUtils.logger.warn("Removed offline player?!")
             }
             this.minigame.data.updatePlayer(player)
             this.spectatorUUIDs.remove(player.uuid)
+            this.updateRoles(player)
             this.removeAdmin(player)
 
             GlobalEventHandler.Server.broadcast(MinigameRemovePlayerEvent(this.minigame, player))
-            this.connections.remove(player.connection)
+            this.untrack(player)
             player.minigame.removeMinigame()
             this.restoreServerPlayer(player)
             return true
@@ -273,6 +289,7 @@ public class MinigamePlayerManager(
 
     public fun setSpectating(player: ServerPlayer): Boolean {
         if (this.has(player) && this.spectatorUUIDs.add(player.uuid)) {
+            this.updateRoles(player)
             GlobalEventHandler.Server.broadcast(MinigameSetSpectatingEvent(this.minigame, player))
             GlobalEventHandler.Server.broadcast(MinigameLoadSpectatingEvent(this.minigame, player))
             return true
@@ -282,6 +299,7 @@ public class MinigamePlayerManager(
 
     public fun setPlaying(player: ServerPlayer): Boolean {
         if (this.spectatorUUIDs.remove(player.uuid)) {
+            this.updateRoles(player)
             GlobalEventHandler.Server.broadcast(MinigameSetPlayingEvent(this.minigame, player))
             GlobalEventHandler.Server.broadcast(MinigameLoadPlayingEvent(this.minigame, player))
             return true
@@ -291,6 +309,7 @@ public class MinigamePlayerManager(
 
     public fun addAdmin(player: ServerPlayer): Boolean {
         if (this.has(player) && this.adminUUIDs.add(player.uuid)) {
+            this.updateRoles(player)
             GlobalEventHandler.Server.broadcast(MinigameAddAdminEvent(this.minigame, player))
             return true
         }
@@ -299,6 +318,7 @@ public class MinigamePlayerManager(
 
     public fun removeAdmin(player: ServerPlayer): Boolean {
         if (this.adminUUIDs.remove(player.uuid)) {
+            this.updateRoles(player)
             GlobalEventHandler.Server.broadcast(MinigameRemoveAdminEvent(this.minigame, player))
             return true
         }
@@ -312,7 +332,7 @@ public class MinigamePlayerManager(
      * @return Whether the player is playing.
      */
     public fun has(player: ServerPlayer): Boolean {
-        return this.connections.contains(player.connection)
+        return this.connections.containsKey(player.connection)
     }
 
     public operator fun contains(player: ServerPlayer): Boolean {
@@ -333,8 +353,14 @@ public class MinigamePlayerManager(
         return this.offlineGameProfiles.any { it.id == uuid }
     }
 
+    /**
+     * This checks whether a given player is playing, i.e. not spectating.
+     *
+     * @param player The player to check.
+     * @return Whether the player is playing.
+     */
     public fun isPlaying(player: ServerPlayer): Boolean {
-        return this.has(player) && !this.isSpectating(player)
+        return (this.getRoleFlags(player) and ListenerFlags.IS_PLAYING) != 0
     }
 
     public fun isSpectating(player: ServerPlayer): Boolean {
@@ -379,11 +405,30 @@ public class MinigamePlayerManager(
     }
 
     public fun broadcast(packet: Packet<*>) {
-        for (connection in this.connections) {
+        for (connection in this.connections.keys) {
             connection.send(packet)
         }
     }
 
+    /**
+     * Gets the cached role flags of a given player, these
+     * are a combination of [ListenerFlags.HAS_PLAYER],
+     * [ListenerFlags.IS_PLAYING], [ListenerFlags.IS_SPECTATOR],
+     * and [ListenerFlags.IS_ADMIN].
+     *
+     * @param player The player to get the role flags for.
+     * @return The role flags, 0 if the player isn't in the minigame.
+     */
+    internal fun getRoleFlags(player: ServerPlayer): Int {
+        return this.connections.getInt(player.connection)
+    }
+
+    internal fun addOfflineProfile(profile: GameProfile) {
+        if (this.offlineGameProfiles.add(profile)) {
+            this.invalidate()
+        }
+    }
+
     internal fun close() {
         // We copy the players to avoid CME
         for (player in this.all) {
@@ -391,8 +436,54 @@ public class MinigamePlayerManager(
         }
     }
 
-    private fun streamPlayers(): Stream<ServerPlayer> {
-        return this.connections.stream().map { it.player }
+    private fun track(player: ServerPlayer) {
+        this.connections.put(player.connection, this.computeRoleFlags(player))
+        this.invalidate()
+    }
+
+    private fun invalidate() {
+        this.partitions = null
+        this.version++
+    }
+
+    private fun untrack(player: ServerPlayer) {
+        this.connections.removeInt(player.connection)
+        this.invalidate()
+    }
+
+    private fun updateRoles(player: ServerPlayer) {
+        if (this.connections.containsKey(player.connection)) {
+            val flags = this.computeRoleFlags(player)
+            if (this.connections.put(player.connection, flags) != flags) {
+                this.invalidate()
+            }
+        }
+    }
+
+    private fun removeOfflineProfile(profile: GameProfile): Boolean {
+        if (this.offlineGameProfiles.remove(profile)) {
+            this.invalidate()
+            return true
+        }
+        return false
+    }
+
+    private fun getPartitions(): Partitions {
+        var partitions = this.partitions
+        if (partitions == null) {
+            partitions = Partitions.create(this.connections, this.offlineGameProfiles)
+            this.partitions = partitions
+        }
+        return partitions
+    }
+
+    private fun computeRoleFlags(player: ServerPlayer): Int {
+        var flags = ListenerFlags.HAS_PLAYER
+        flags = flags or if (this.isSpectating(player)) ListenerFlags.IS_SPECTATOR else ListenerFlags.IS_PLAYING
+        if (this.isAdmin(player)) {
+            flags = flags or ListenerFlags.IS_ADMIN
+        }
+        return flags
     }
 
     override fun iterator(): Iterator<ServerPlayer> {
@@ -402,8 +493,9 @@ public class MinigamePlayerManager(
     private fun onPlayerLeave(event: PlayerLeaveEvent) {
         val (player) = event
 
-        if (this.connections.remove(player.connection)) {
-            this.offlineGameProfiles.add(player.gameProfile)
+        if (this.connections.containsKey(player.connection)) {
+            this.untrack(player)
+            this.addOfflineProfile(player.gameProfile)
 
             this.minigame.data.updatePlayer(player)
             this.data.save(player)
@@ -412,7 +504,9 @@ public class MinigamePlayerManager(
 
     private fun onServerSave() {
         if (!this.keepPlayerData) {
-            this.streamPlayers().forEach(this.data::save)
+            for (player in this.all) {
+                this.data.save(player)
+            }
         }
     }
 
@@ -468,6 +562,80 @@ public class MinigamePlayerManager(
         return copy
     }
 
+    /**
+     * The players partitioned by their roles, each partition
+     * is in the order that the players were tracked.
+     */
+    private class Partitions(
+        val all: List<ServerPlayer>,
+        val playing: List<ServerPlayer>,
+        val spectating: List<ServerPlayer>,
+        val admins: List<ServerPlayer>,
+        val nonAdmins: List<ServerPlayer>,
+        val allProfiles: List<GameProfile>,
+        val offlineProfiles: List<GameProfile>
+    ) {
+        companion object {
+            fun create(
+                connections: Reference2IntLinkedOpenHashMap<ServerGamePacketListenerImpl>,
+                offline: Collection<GameProfile>
+            ): Partitions {
+                val all = ReferenceArrayList<ServerGamePacketListenerImpl>(connections.size)
+                val playing = ReferenceArrayList<ServerGamePacketListenerImpl>()
+                val spectating = ReferenceArrayList<ServerGamePacketListenerImpl>()
+                val admins = ReferenceArrayList<ServerGamePacketListenerImpl>()
+                val nonAdmins = ReferenceArrayList<ServerGamePacketListenerImpl>()
+                val profiles = ObjectArrayList<GameProfile>(connections.size + offline.size)
+                val iterator = connections.reference2IntEntrySet().fastIterator()
+                while (iterator.hasNext()) {
+                    val entry = iterator.next()
+                    val connection = entry.key
+                    val flags = entry.intValue
+                    all.add(connection)
+                    profiles.add(connection.player.gameProfile)
+                    if ((flags and ListenerFlags.IS_PLAYING) != 0) {
+                        playing.add(connection)
+                    }
+                    if ((flags and ListenerFlags.IS_SPECTATOR) != 0) {
+                        spectating.add(connection)
+                    }
+                    if ((flags and ListenerFlags.IS_ADMIN) != 0) {
+                        admins.add(connection)
+                    } else {
+                        nonAdmins.add(connection)
+                    }
+                }
+                val offlineProfiles = ObjectArrayList(offline)
+                profiles.addAll(offlineProfiles)
+                return Partitions(
+                    PlayerView(all.toTypedArray()),
+                    PlayerView(playing.toTypedArray()),
+                    PlayerView(spectating.toTypedArray()),
+                    PlayerView(admins.toTypedArray()),
+                    PlayerView(nonAdmins.toTypedArray()),
+                    Collections.unmodifiableList(profiles),
+                    Collections.unmodifiableList(offlineProfiles)
+                )
+            }
+        }
+    }
+
+    /**
+     * An unmodifiable list of players backed by their connections,
+     * this always resolves the connection's current player as the
+     * player instance may be replaced, see [createNewPlayer].
+     */
+    internal class PlayerView(
+        private val connections: Array<ServerGamePacketListenerImpl>
+    ): AbstractList<ServerPlayer>(), RandomAccess {
+        override val size: Int
+            get() = this.connections.size
+
+        override fun get(index: Int): ServerPlayer {
+            return this.connections[index].player
+        }
+    }
+
     private class DataManager(
         private val path: Path
     ) {
@@ -11,6 +11,7 @@ import it.unimi.dsi.fastutil.objects.ObjectArrayList
 import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent
+import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.registerPacket
 import net.casual.arcade.minigame.Minigame
 import net.casual.arcade.minigame.events.MinigameAddPlayerEvent
 import net.casual.arcade.minigame.events.MinigameRemovePlayerEvent
@@ -54,7 +55,9 @@ public class MinigameRecipeManager(
     private val players = HashMultimap.create<UUID, ResourceKey<Recipe<*>>>()
 
     init {
-        this.minigame.events.register<PlayerClientboundPacketEvent>(this::onClientboundPacket)
+        this.minigame.events.registerPacket<ClientboundRecipeBookAddPacket> { event, _ ->
+            this.onClientboundPacket(event)
+        }
         this.minigame.events.register<MinigameAddPlayerEvent>(this::onPlayerAdded)
         this.minigame.events.register<MinigameRemovePlayerEvent>(this::onPlayerRemoved)
     }
@@ -10,6 +10,7 @@ import net.casual.arcade.scheduler.TickedScheduler
 import net.casual.arcade.scheduler.task.SavableTask
 import net.casual.arcade.scheduler.task.Task
 import net.casual.arcade.scheduler.task.impl.CancellableTask
+import net.casual.arcade.scheduler.task.impl.RepeatingTask
 import net.casual.arcade.utils.time.MinecraftTimeDuration
 import net.casual.arcade.utils.time.MinecraftTimeUnit
 
@@ -57,6 +58,25 @@ public class MinigameScheduler: MinecraftScheduler {
         this.minigame.schedule(duration, task)
     }
 
+    /**
+     * This schedules a [task] that repeats every [interval],
+     * after an initial [delay], for the given number of [repeats].
+     *
+     * @param delay The initial delay before the first run of the [task].
+     * @param interval The amount of time between each run of the [task].
+     * @param repeats The number of times to run the [task], or [RepeatingTask.INFINITE].
+     * @param task The runnable to be scheduled.
+     * @return The repeating task.
+     */
+    override fun scheduleRepeating(
+        delay: MinecraftTimeDuration,
+        interval: MinecraftTimeDuration,
+        repeats: Int,
+        task: Task
+    ): RepeatingTask {
+        return this.minigame.scheduleRepeating(delay, interval, repeats, task)
+    }
+
     /**
      * This method will schedule a [task] to be run
      * after a given [duration].
@@ -121,4 +141,25 @@ public class MinigameScheduler: MinecraftScheduler {
     ) {
         this.phased.scheduleInLoop(delay, interval, duration, task)
     }
+
+    /**
+     * This schedules a [task] that repeats every [interval],
+     * after an initial [delay], for the given number of [repeats].
+     *
+     * If the minigame's phase changes, the task will no longer run.
+     *
+     * @param delay The initial delay before the first run of the [task].
+     * @param interval The amount of time between each run of the [task].
+     * @param repeats The number of times to run the [task], or [RepeatingTask.INFINITE].
+     * @param task The runnable to be scheduled.
+     * @return The repeating task.
+     */
+    public fun schedulePhasedRepeating(
+        delay: MinecraftTimeDuration,
+        interval: MinecraftTimeDuration,
+        repeats: Int,
+        task: Task
+    ): RepeatingTask {
+        return this.phased.scheduleRepeating(delay, interval, repeats, task)
+    }
 }
\ No newline at end of file
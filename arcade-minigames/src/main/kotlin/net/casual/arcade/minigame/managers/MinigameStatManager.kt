@@ -6,7 +6,10 @@ package net.casual.arcade.minigame.managers
 
 import com.google.gson.JsonArray
 import com.google.gson.JsonObject
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap
 import net.casual.arcade.minigame.stats.Stat
+import net.casual.arcade.minigame.stats.StatColumn
 import net.casual.arcade.minigame.stats.StatTracker
 import net.casual.arcade.minigame.stats.StatType
 import net.casual.arcade.utils.JsonUtils.array
@@ -14,23 +17,34 @@ import net.casual.arcade.utils.JsonUtils.objects
 import net.casual.arcade.utils.JsonUtils.string
 import net.minecraft.server.level.ServerPlayer
 import java.util.*
-import java.util.concurrent.ConcurrentHashMap
 
+/**
+ * This class manages the stats for all players in a minigame.
+ *
+ * Each player is assigned a dense slot, and each [StatType]
+ * is stored as a column indexed by slot.
+ * `int32` and `float32` stat types are stored in primitive
+ * columns, these can be modified without boxing using the
+ * [increment] and [add] methods.
+ */
 public class MinigameStatManager {
-    private val stats = ConcurrentHashMap<UUID, StatTracker>()
+    private val slots = Object2IntOpenHashMap<UUID>().apply { defaultReturnValue(-1) }
+    private val trackers = ArrayList<StatTracker>()
+    private val uuids = ArrayList<UUID>()
+    private val columns = Reference2ObjectLinkedOpenHashMap<StatType<*>, StatColumn<*>>()
     private var frozen = false
 
     public fun freeze() {
         this.frozen = true
-        for (stat in this.stats.values) {
-            stat.freeze()
+        for (tracker in this.trackers) {
+            tracker.freeze()
         }
     }
 
     public fun unfreeze() {
         this.frozen = false
-        for (stat in this.stats.values) {
-            stat.unfreeze()
+        for (tracker in this.trackers) {
+            tracker.unfreeze()
         }
     }
 
@@ -43,17 +57,138 @@ public class MinigameStatManager {
     }
 
     public fun getOrCreateTracker(uuid: UUID): StatTracker {
-        return this.stats.getOrPut(uuid) {
-            StatTracker().also { if (this.frozen) it.freeze() }
+        val slot = this.slots.getInt(uuid)
+        if (slot >= 0) {
+            return this.trackers[slot]
+        }
+        val tracker = StatTracker(this, this.trackers.size)
+        this.slots.put(uuid, tracker.slot)
+        this.trackers.add(tracker)
+        this.uuids.add(uuid)
+        if (this.frozen) {
+            tracker.freeze()
         }
+        return tracker
+    }
+
+    /**
+     * Increments the given `int32` stat for a player without boxing.
+     *
+     * @param player The player whose stat to increment.
+     * @param type The stat type.
+     * @param delta The amount to increment by.
+     */
+    public fun increment(player: ServerPlayer, type: StatType<Int>, delta: Int = 1) {
+        this.increment(player.uuid, type, delta)
+    }
+
+    /**
+     * Increments the given `int32` stat for a player without boxing.
+     *
+     * @param uuid The uuid of the player whose stat to increment.
+     * @param type The stat type.
+     * @param delta The amount to increment by.
+     */
+    public fun increment(uuid: UUID, type: StatType<Int>, delta: Int = 1) {
+        val tracker = this.getOrCreateTracker(uuid)
+        val column = this.getOrCreateColumn(tracker, type)
+        if (column is StatColumn.Int32) {
+            column.add(tracker.slot, delta)
+        } else {
+            column.view(tracker.slot).modify { it + delta }
+        }
+    }
+
+    /**
+     * Increments the given `int32` stat for all the given players.
+     *
+     * The stat column is only resolved once for all the players.
+     *
+     * @param players The players whose stat to increment.
+     * @param type The stat type.
+     * @param delta The amount to increment by.
+     */
+    public fun incrementAll(players: Iterable<ServerPlayer>, type: StatType<Int>, delta: Int = 1) {
+        val column = this.getOrCreateColumn(type)
+        for (player in players) {
+            val tracker = this.getOrCreateTracker(player.uuid)
+            if (!column.isPresent(tracker.slot)) {
+                tracker.initialize(column)
+            }
+            if (column is StatColumn.Int32) {
+                column.add(tracker.slot, delta)
+            } else {
+                column.view(tracker.slot).modify { it + delta }
+            }
+        }
+    }
+
+    /**
+     * Adds to the given `float32` stat for a player without boxing.
+     *
+     * @param player The player whose stat to add to.
+     * @param type The stat type.
+     * @param delta The amount to add.
+     */
+    public fun add(player: ServerPlayer, type: StatType<Float>, delta: Float) {
+        this.add(player.uuid, type, delta)
+    }
+
+    /**
+     * Adds to the given `float32` stat for a player without boxing.
+     *
+     * @param uuid The uuid of the player whose stat to add to.
+     * @param type The stat type.
+     * @param delta The amount to add.
+     */
+    public fun add(uuid: UUID, type: StatType<Float>, delta: Float) {
+        val tracker = this.getOrCreateTracker(uuid)
+        val column = this.getOrCreateColumn(tracker, type)
+        if (column is StatColumn.Float32) {
+            column.add(tracker.slot, delta)
+        } else {
+            column.view(tracker.slot).modify { it + delta }
+        }
+    }
+
+    /**
+     * Gets the value of an `int32` stat for a player without boxing.
+     *
+     * @param uuid The uuid of the player.
+     * @param type The stat type.
+     * @return The value of the stat, or the default if it's not present.
+     */
+    public fun getInt(uuid: UUID, type: StatType<Int>): Int {
+        val slot = this.slots.getInt(uuid)
+        val column = this.columns[type]
+        if (slot < 0 || column !is StatColumn.Int32 || !column.isPresent(slot)) {
+            return if (slot < 0) type.default else this.trackers[slot].getStatValueOrDefault(type)
+        }
+        return column.get(slot)
+    }
+
+    /**
+     * Gets the value of a `float32` stat for a player without boxing.
+     *
+     * @param uuid The uuid of the player.
+     * @param type The stat type.
+     * @return The value of the stat, or the default if it's not present.
+     */
+    public fun getFloat(uuid: UUID, type: StatType<Float>): Float {
+        val slot = this.slots.getInt(uuid)
+        val column = this.columns[type]
+        if (slot < 0 || column !is StatColumn.Float32 || !column.isPresent(slot)) {
+            return if (slot < 0) type.default else this.trackers[slot].getStatValueOrDefault(type)
+        }
+        return column.get(slot)
     }
 
     public fun serialize(): JsonArray {
         val stats = JsonArray()
-        for ((uuid, tracker) in this.stats) {
+        for ((slot, uuid) in this.uuids.withIndex()) {
             val data = JsonObject()
             data.addProperty("uuid", uuid.toString())
-            data.add("stats", tracker.serialize())
+            data.add("stats", this.trackers[slot].serialize())
             stats.add(data)
         }
         return stats
@@ -64,7 +199,8 @@ public class MinigameStatManager {
     }
 
     public fun serialize(uuid: UUID): JsonArray {
-        return this.stats[uuid]?.serialize() ?: JsonArray()
+        val slot = this.slots.getInt(uuid)
+        return if (slot < 0) JsonArray() else this.trackers[slot].serialize()
     }
 
     internal fun deserialize(array: JsonArray) {
@@ -73,4 +209,32 @@ public class MinigameStatManager {
             this.getOrCreateTracker(uuid).deserialize(tracker.array("stats"))
         }
     }
-}
\ No newline at end of file
+
+    internal fun <T> getColumn(type: StatType<T>): StatColumn<T>? {
+        @Suppress("UNCHECKED_CAST")
+        return this.columns[type] as StatColumn<T>?
+    }
+
+    internal fun <T> getOrCreateColumn(tracker: StatTracker, type: StatType<T>): StatColumn<T> {
+        val column = this.getOrCreateColumn(type)
+        if (!column.isPresent(tracker.slot)) {
+            tracker.initialize(column)
+        }
+        return column
+    }
+
+    internal fun getColumns(): Collection<StatColumn<*>> {
+        return this.columns.values
+    }
+
+    internal fun setFrozen(slot: Int, frozen: Boolean) {
+        for (column in this.columns.values) {
+            column.setFrozen(slot, frozen)
+        }
+    }
+
+    private fun <T> getOrCreateColumn(type: StatType<T>): StatColumn<T> {
+        @Suppress("UNCHECKED_CAST")
+        return this.columns.getOrPut(type) { StatColumn.of(type) } as StatColumn<T>
+    }
+}
@@ -5,10 +5,14 @@
 package net.casual.arcade.minigame.managers
 
 import com.google.gson.JsonObject
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.player.PlayerTeamJoinEvent
 import net.casual.arcade.minigame.Minigame
+import net.casual.arcade.minigame.ducks.VersionedTeams
 import net.casual.arcade.minigame.events.MinigameAddAdminEvent
 import net.casual.arcade.minigame.events.MinigameRemoveAdminEvent
 import net.casual.arcade.minigame.events.MinigameSetPlayingEvent
@@ -17,12 +21,13 @@ import net.casual.arcade.utils.ArcadeUtils
 import net.casual.arcade.utils.JsonUtils.stringOrNull
 import net.casual.arcade.utils.PlayerUtils.addToTeam
 import net.casual.arcade.utils.PlayerUtils.removeFromTeam
-import net.casual.arcade.utils.TeamUtils
 import net.casual.arcade.utils.TeamUtils.getOnlinePlayers
 import net.minecraft.server.level.ServerPlayer
+import net.minecraft.server.network.ServerGamePacketListenerImpl
 import net.minecraft.world.scores.PlayerTeam
 import net.minecraft.world.scores.Scoreboard
 import net.minecraft.world.scores.Team
+import java.util.*
 
 public class MinigameTeamManager(
     private val minigame: Minigame
@@ -32,6 +37,11 @@ public class MinigameTeamManager(
 
     private val eliminated = ReferenceOpenHashSet<PlayerTeam>()
 
+    // Index of the teams of the minigame's players, rebuilt lazily
+    // whenever team membership, player roles, or ignored teams change
+    private var index: TeamIndex? = null
+    private var version = 0
+
     init {
         this.minigame.events.register<MinigameSetSpectatingEvent> { (_, player) ->
             this.addToSpectatorTeam(player)
@@ -60,6 +70,7 @@ public class MinigameTeamManager(
 
     public fun setAdminTeam(team: PlayerTeam) {
         this.admins = team
+        this.version++
         for (player in team.getOnlinePlayers()) {
             this.minigame.players.addAdmin(player)
         }
@@ -70,6 +81,7 @@ public class MinigameTeamManager(
 
     public fun setSpectatorTeam(team: PlayerTeam) {
         this.spectators = team
+        this.version++
         for (player in team.getOnlinePlayers()) {
             this.minigame.players.setSpectating(player)
         }
@@ -79,7 +91,9 @@ public class MinigameTeamManager(
     }
 
     public fun addEliminatedTeam(team: PlayerTeam) {
-        this.eliminated.add(team)
+        if (this.eliminated.add(team)) {
+            this.version++
+        }
     }
 
     public fun getEliminatedTeams(): Collection<PlayerTeam> {
@@ -95,7 +109,9 @@ public class MinigameTeamManager(
     }
 
     public fun removeEliminatedTeam(team: PlayerTeam) {
-        this.eliminated.remove(team)
+        if (this.eliminated.remove(team)) {
+            this.version++
+        }
     }
 
     public fun hasAdminTeam(): Boolean {
@@ -125,10 +141,13 @@ public class MinigameTeamManager(
     /**
      * This gets all the teams that are playing in the minigame.
      *
+     * The returned collection is an unmodifiable snapshot, it is
+     * cached until team membership or the players' roles change.
+     *
      * @return The collection of player teams.
      */
     public fun getOnlineTeams(): Collection<PlayerTeam> {
-        return TeamUtils.getTeamsFor(this.minigame.players)
+        return this.getIndex().online.keys
     }
 
     /**
@@ -136,43 +155,60 @@ public class MinigameTeamManager(
      * any teams that are marked as eliminated and also does
      * not include spectator or admin teams.
      *
+     * The returned collection is an unmodifiable snapshot, it is
+     * cached until team membership or the players' roles change.
+     *
      * @return The collecting of playing players teams.
      */
     public fun getPlayingTeams(): Collection<PlayerTeam> {
-        val teams = TeamUtils.getTeamsFor(this.minigame.players.playing)
-        val admins = this.admins
-        if (admins != null && teams.remove(admins)) {
-            ArcadeUtils.logger.warn("MinigameTeamManager.getPlayingTeams included admins")
-        }
-        val spectators = this.spectators
-        if (spectators != null && teams.remove(spectators)) {
-            ArcadeUtils.logger.warn("MinigameTeamManager.getPlayingTeams included spectators")
-        }
-        for (ignored in this.eliminated) {
-            teams.remove(ignored)
-        }
-        return teams
+        return this.getIndex().playingTeams
     }
 
     /**
      * This gets all the teams that are playing in the minigame,
      * including offline teams.
      *
+     * The returned collection is an unmodifiable snapshot, it is
+     * cached until team membership or the players' roles change.
+     *
      * @return The collection of player teams.
      */
     public fun getAllTeams(): Collection<PlayerTeam> {
-        val teams = ReferenceOpenHashSet<PlayerTeam>()
-        for (profile in this.minigame.players.allProfiles) {
-            teams.add(this.minigame.server.scoreboard.getPlayersTeam(profile.name) ?: continue)
-        }
-        return teams
+        return this.getIndex().allTeams
     }
 
     public fun getAllNonSpectatorOrAdminTeams(): Collection<PlayerTeam> {
-        val teams = this.getAllTeams() as ReferenceOpenHashSet<PlayerTeam>
-        teams.remove(this.admins)
-        teams.remove(this.spectators)
-        return teams
+        return this.getIndex().allNonSpectatorOrAdminTeams
+    }
+
+    /**
+     * This gets the online members of a team that are
+     * part of the minigame.
+     *
+     * @param team The team to get the members of.
+     * @return The online members of the team.
+     */
+    public fun getOnlineMembers(team: PlayerTeam): List<ServerPlayer> {
+        return this.getIndex().online[team]?.online ?: emptyList()
+    }
+
+    /**
+     * This gets the online members of a team that are
+     * playing in the minigame, i.e. not spectating.
+     *
+     * @param team The team to get the playing members of.
+     * @return The playing members of the team.
+     */
+    public fun getPlayingMembers(team: PlayerTeam): List<ServerPlayer> {
+        return this.getIndex().online[team]?.playing ?: emptyList()
+    }
+
+    public fun getOnlineMemberCount(team: PlayerTeam): Int {
+        return this.getOnlineMembers(team).size
+    }
+
+    public fun getPlayingMemberCount(team: PlayerTeam): Int {
+        return this.getPlayingMembers(team).size
     }
 
     public fun hideNameTags() {
@@ -213,6 +249,7 @@ public class MinigameTeamManager(
     }
 
     internal fun deserialize(teams: JsonObject, scoreboard: Scoreboard) {
+        this.version++
         val admins = teams.stringOrNull("admins")
         if (admins != null) {
             this.admins = scoreboard.getPlayerTeam(admins)
@@ -222,4 +259,92 @@ public class MinigameTeamManager(
             this.spectators = scoreboard.getPlayerTeam(spectators)
         }
     }
-}
\ No newline at end of file
+
+    private fun getIndex(): TeamIndex {
+        val scoreboard = this.minigame.server.scoreboard
+        val scoreboardVersion = (scoreboard as VersionedTeams).`arcade$getTeamVersion`()
+        val index = this.index
+        if (index != null && index.isValid(scoreboardVersion, this.minigame.players.version, this.version)) {
+            return index
+        }
+        val created = this.createIndex(scoreboard, scoreboardVersion)
+        this.index = created
+        return created
+    }
+
+    private fun createIndex(scoreboard: Scoreboard, scoreboardVersion: Int): TeamIndex {
+        val players = this.minigame.players
+        val online = Reference2ObjectLinkedOpenHashMap<PlayerTeam, ReferenceArrayList<ServerGamePacketListenerImpl>>()
+        val playing = Reference2ObjectLinkedOpenHashMap<PlayerTeam, ReferenceArrayList<ServerGamePacketListenerImpl>>()
+        for (player in players.all) {
+            val team = player.team ?: continue
+            online.getOrPut(team) { ReferenceArrayList() }.add(player.connection)
+            if (players.isPlaying(player)) {
+                playing.getOrPut(team) { ReferenceArrayList() }.add(player.connection)
+            }
+        }
+
+        val members = Reference2ObjectLinkedOpenHashMap<PlayerTeam, TeamMembers>(online.size)
+        for ((team, connections) in online) {
+            val playingConnections = playing[team]
+            members[team] = TeamMembers(
+                MinigamePlayerManager.PlayerView(connections.toTypedArray()),
+                if (playingConnections == null) emptyList() else MinigamePlayerManager.PlayerView(playingConnections.toTypedArray())
+            )
+        }
+
+        val playingTeams = ReferenceLinkedOpenHashSet(playing.keys)
+        val admins = this.admins
+        if (admins != null && playingTeams.remove(admins)) {
+            ArcadeUtils.logger.warn("MinigameTeamManager.getPlayingTeams included admins")
+        }
+        val spectators = this.spectators
+        if (spectators != null && playingTeams.remove(spectators)) {
+            ArcadeUtils.logger.warn("MinigameTeamManager.getPlayingTeams included spectators")
+        }
+        playingTeams.removeAll(this.eliminated)
+
+        val allTeams = ReferenceLinkedOpenHashSet<PlayerTeam>()
+        for (profile in players.allProfiles) {
+            allTeams.add(scoreboard.getPlayersTeam(profile.name) ?: continue)
+        }
+        val allNonSpectatorOrAdminTeams = ReferenceLinkedOpenHashSet(allTeams)
+        if (admins != null) {
+            allNonSpectatorOrAdminTeams.remove(admins)
+        }
+        if (spectators != null) {
+            allNonSpectatorOrAdminTeams.remove(spectators)
+        }
+
+        return TeamIndex(
+            scoreboardVersion,
+            players.version,
+            this.version,
+            Collections.unmodifiableMap(members),
+            Collections.unmodifiableSet(playingTeams),
+            Collections.unmodifiableSet(allTeams),
+            Collections.unmodifiableSet(allNonSpectatorOrAdminTeams)
+        )
+    }
+
+    private class TeamMembers(
+        val online: List<ServerPlayer>,
+        val playing: List<ServerPlayer>
+    )
+
+    private class TeamIndex(
+        private val scoreboardVersion: Int,
+        private val playersVersion: Int,
+        private val teamsVersion: Int,
+        val online: Map<PlayerTeam, TeamMembers>,
+        val playingTeams: Set<PlayerTeam>,
+        val allTeams: Set<PlayerTeam>,
+        val allNonSpectatorOrAdminTeams: Set<PlayerTeam>
+    ) {
+        fun isValid(scoreboardVersion: Int, playersVersion: Int, teamsVersion: Int): Boolean {
+            return this.scoreboardVersion == scoreboardVersion
+                && this.playersVersion == playersVersion
+                && this.teamsVersion == teamsVersion
+        }
+    }
+}
@@ -5,8 +5,6 @@
 package net.casual.arcade.minigame.managers
 
 import net.casual.arcade.events.ListenerRegistry.Companion.register
-import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent
-import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.replacePacket
 import net.casual.arcade.minigame.Minigame
 import net.casual.arcade.minigame.events.MinigamePauseEvent
 import net.casual.arcade.minigame.events.MinigameUnpauseEvent
@@ -38,7 +36,6 @@ public class MinigameTickRateManager(
                 this.setFrozen(false)
             }
         }
-        this.minigame.events.register<PlayerClientboundPacketEvent>(::onPlayerClientboundPacketEvent)
     }
 
     override fun setTickRate(tickRate: Float) {
@@ -215,15 +212,4 @@ public class MinigameTickRateManager(
     private fun global(): ServerTickRateManager {
         return this.minigame.server.tickRateManager()
     }
-
-    private fun onPlayerClientboundPacketEvent(event: PlayerClientboundPacketEvent) {
-        // We need to somehow allow fake packets through to simulate ticking under some circumstances
-        // event.replacePacket { _, packet ->
-        //     when (packet) {
-        //         is ClientboundTickingStatePacket -> ClientboundTickingStatePacket.from(this)
-        //         is ClientboundTickingStepPacket -> ClientboundTickingStepPacket.from(this)
-        //         else -> packet
-        //     }
-        // }
-    }
 }
\ No newline at end of file
@@ -123,7 +123,7 @@ public class MinigameSerializer(
 
         for (player in json.arrayOrDefault("players").objects()) {
             val profile = GameProfile(player.uuidOrNull("uuid"), player.stringOrNull("name"))
-            this.minigame.players.offlineGameProfiles.add(profile)
+            this.minigame.players.addOfflineProfile(profile)
         }
 
         this.minigame.players.spectatorUUIDs.addAll(json.arrayOrDefault("spectators").uuids())
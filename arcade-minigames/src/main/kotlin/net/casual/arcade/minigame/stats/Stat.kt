@@ -6,38 +6,61 @@ package net.casual.arcade.minigame.stats
 
 import com.google.gson.JsonElement
 
-public class Stat<T>(
-    public val stat: StatType<T>
+/**
+ * A view of a player's value for a given [StatType].
+ *
+ * The value itself is stored by the
+ * [net.casual.arcade.minigame.managers.MinigameStatManager].
+ */
+public class Stat<T> internal constructor(
+    private val column: StatColumn<T>,
+    private val slot: Int
 ) {
-    public var value: T = this.stat.default
-        private set
-    public var frozen: Boolean = false
+    public val stat: StatType<T>
+        get() = this.column.type
+
+    public val value: T
+        get() = this.column.get(this.slot)
+
+    public var frozen: Boolean
+        get() = this.column.isFrozen(this.slot)
+        set(value) = this.column.setFrozen(this.slot, value)
 
     public fun modify(modifier: (current: T) -> T) {
         if (!this.frozen) {
-            this.value = modifier(this.value)
+            this.column.set(this.slot, modifier(this.value))
         }
     }
 
     public fun serialize(): JsonElement {
-        return this.stat.serializer.serialize(this.value)
+        return this.column.serialize(this.slot)
     }
 
     public fun deserialize(element: JsonElement) {
-        this.value = this.stat.serializer.deserialize(element)
+        this.column.deserialize(this.slot, element)
     }
 
     public companion object {
         public fun Stat<Int>.increment(delta: Int = 1) {
-            this.modify { it + delta }
+            val column = this.column
+            if (column is StatColumn.Int32) {
+                column.add(this.slot, delta)
+            } else {
+                this.modify { it + delta }
+            }
         }
 
         public fun Stat<Float>.increment(delta: Float = 1.0F) {
-            this.modify { it + delta }
+            val column = this.column
+            if (column is StatColumn.Float32) {
+                column.add(this.slot, delta)
+            } else {
+                this.modify { it + delta }
+            }
         }
 
         public fun Stat<Double>.increment(delta: Double = 1.0) {
             this.modify { it + delta }
         }
     }
-}
\ No newline at end of file
+}
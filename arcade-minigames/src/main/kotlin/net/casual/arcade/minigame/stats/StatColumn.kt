@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.minigame.stats
+
+import com.google.gson.JsonElement
+import net.casual.arcade.utils.json.FloatSerializer
+import net.casual.arcade.utils.json.IntSerializer
+import java.util.*
+
+/**
+ * Storage for a single [StatType] for every player slot.
+ *
+ * `int32` and `float32` stat types are stored in primitive
+ * arrays, all other types are stored boxed.
+ */
+internal sealed class StatColumn<T>(val type: StatType<T>) {
+    private val present = BitSet()
+    private val frozen = BitSet()
+    private var views = arrayOfNulls<Stat<*>>(INITIAL_CAPACITY)
+
+    abstract fun get(slot: Int): T
+
+    abstract fun set(slot: Int, value: T)
+
+    protected abstract fun grow(capacity: Int)
+
+    fun isPresent(slot: Int): Boolean {
+        return this.present.get(slot)
+    }
+
+    fun create(slot: Int, frozen: Boolean) {
+        this.ensureCapacity(slot)
+        this.set(slot, this.type.default)
+        this.present.set(slot)
+        this.frozen.set(slot, frozen)
+    }
+
+    fun isFrozen(slot: Int): Boolean {
+        return this.frozen.get(slot)
+    }
+
+    fun setFrozen(slot: Int, frozen: Boolean) {
+        if (this.present.get(slot)) {
+            this.frozen.set(slot, frozen)
+        }
+    }
+
+    fun view(slot: Int): Stat<T> {
+        @Suppress("UNCHECKED_CAST")
+        val existing = this.views[slot] as Stat<T>?
+        if (existing != null) {
+            return existing
+        }
+        val stat = Stat(this, slot)
+        this.views[slot] = stat
+        return stat
+    }
+
+    fun serialize(slot: Int): JsonElement {
+        return this.type.serializer.serialize(this.get(slot))
+    }
+
+    fun deserialize(slot: Int, element: JsonElement) {
+        this.set(slot, this.type.serializer.deserialize(element))
+    }
+
+    private fun ensureCapacity(slot: Int) {
+        if (slot >= this.views.size) {
+            val capacity = maxOf(slot + 1, this.views.size * 2)
+            this.views = this.views.copyOf(capacity)
+            this.grow(capacity)
+        }
+    }
+
+    class Int32(type: StatType<Int>): StatColumn<Int>(type) {
+        private var values = IntArray(INITIAL_CAPACITY)
+
+        override fun get(slot: Int): Int {
+            return this.values[slot]
+        }
+
+        override fun set(slot: Int, value: Int) {
+            this.values[slot] = value
+        }
+
+        fun add(slot: Int, delta: Int) {
+            if (!this.isFrozen(slot)) {
+                this.values[slot] += delta
+            }
+        }
+
+        override fun grow(capacity: Int) {
+            this.values = this.values.copyOf(capacity)
+        }
+    }
+
+    class Float32(type: StatType<Float>): StatColumn<Float>(type) {
+        private var values = FloatArray(INITIAL_CAPACITY)
+
+        override fun get(slot: Int): Float {
+            return this.values[slot]
+        }
+
+        override fun set(slot: Int, value: Float) {
+            this.values[slot] = value
+        }
+
+        fun add(slot: Int, delta: Float) {
+            if (!this.isFrozen(slot)) {
+                this.values[slot] += delta
+            }
+        }
+
+        override fun grow(capacity: Int) {
+            this.values = this.values.copyOf(capacity)
+        }
+    }
+
+    class Boxed<T>(type: StatType<T>): StatColumn<T>(type) {
+        private var values = arrayOfNulls<Any>(INITIAL_CAPACITY)
+
+        override fun get(slot: Int): T {
+            @Suppress("UNCHECKED_CAST")
+            return this.values[slot] as T
+        }
+
+        override fun set(slot: Int, value: T) {
+            this.values[slot] = value
+        }
+
+        override fun grow(capacity: Int) {
+            this.values = this.values.copyOf(capacity)
+        }
+    }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 16
+
+        fun <T> of(type: StatType<T>): StatColumn<T> {
+            @Suppress("UNCHECKED_CAST")
+            return when (type.serializer) {
+                IntSerializer -> Int32(type as StatType<Int>)
+                FloatSerializer -> Float32(type as StatType<Float>)
+                else -> Boxed(type)
+            } as StatColumn<T>
+        }
+    }
+}
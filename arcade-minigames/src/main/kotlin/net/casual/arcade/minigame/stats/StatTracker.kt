@@ -7,28 +7,33 @@ package net.casual.arcade.minigame.stats
 import com.google.gson.JsonArray
 import com.google.gson.JsonElement
 import com.google.gson.JsonObject
+import net.casual.arcade.minigame.managers.MinigameStatManager
 import net.casual.arcade.utils.JsonUtils.objects
 import net.casual.arcade.utils.JsonUtils.string
 import net.minecraft.resources.ResourceLocation
-import java.util.concurrent.ConcurrentHashMap
 
-public class StatTracker {
-    private val unprocessed = ConcurrentHashMap<ResourceLocation, Pair<JsonElement, String>>()
-    private val stats = ConcurrentHashMap<StatType<*>, Stat<*>>()
-    private var frozen: Boolean = false
+/**
+ * This class tracks the stats for a single player.
+ *
+ * The stats are stored by the [MinigameStatManager] in
+ * columns indexed by the tracker's slot.
+ */
+public class StatTracker internal constructor(
+    private val manager: MinigameStatManager,
+    internal val slot: Int
+) {
+    private val unprocessed = LinkedHashMap<ResourceLocation, Pair<JsonElement, String>>()
+    internal var frozen: Boolean = false
+        private set
 
     public fun freeze() {
         this.frozen = true
-        for (stat in this.stats.values) {
-            stat.frozen = true
-        }
+        this.manager.setFrozen(this.slot, true)
     }
 
     public fun unfreeze() {
         this.frozen = false
-        for (stat in this.stats.values) {
-            stat.frozen = false
-        }
+        this.manager.setFrozen(this.slot, false)
     }
 
     public fun <T> getStatValueOrDefault(type: StatType<T>): T {
@@ -37,31 +42,27 @@ public class StatTracker {
             return type.serializer.deserialize(unprocessed.first)
         }
 
-        val stat = this.stats[type] ?: return type.default
-        @Suppress("UNCHECKED_CAST")
-        return (stat as Stat<T>).value
+        val column = this.manager.getColumn(type)
+        if (column == null || !column.isPresent(this.slot)) {
+            return type.default
+        }
+        return column.get(this.slot)
     }
 
     public fun <T> getOrCreateStat(type: StatType<T>): Stat<T> {
-        this.unprocessed.remove(type.id)?.let { (data, _) ->
-            val stat = this.createStat(type)
-            stat.deserialize(data)
-            this.stats[type] = stat
-            return stat
-        }
-
-        @Suppress("UNCHECKED_CAST")
-        return this.stats.getOrPut(type) { this.createStat(type) } as Stat<T>
+        return this.manager.getOrCreateColumn(this, type).view(this.slot)
     }
 
     public fun serialize(): JsonArray {
         val stats = JsonArray()
-        for ((type, stat) in this.stats) {
-            val statData = JsonObject()
-            statData.addProperty("type", type.id.toString())
-            statData.add("value", stat.serialize())
-            statData.addProperty("value_type", stat.stat.serializer.type())
-            stats.add(statData)
+        for (column in this.manager.getColumns()) {
+            if (column.isPresent(this.slot)) {
+                val statData = JsonObject()
+                statData.addProperty("type", column.type.id.toString())
+                statData.add("value", column.serialize(this.slot))
+                statData.addProperty("value_type", column.type.serializer.type())
+                stats.add(statData)
+            }
         }
         for ((type, stat) in this.unprocessed) {
             val statData = JsonObject()
@@ -80,9 +81,21 @@ public class StatTracker {
             val type = statData.string("value_type")
             this.unprocessed[location] = value to type
         }
+        // Existing stats won't be looked up again so we must process them now
+        for (column in this.manager.getColumns()) {
+            if (column.isPresent(this.slot)) {
+                this.initialize(column)
+            }
+        }
     }
 
-    private fun <T> createStat(type: StatType<T>): Stat<T> {
-        return Stat(type).also { stat -> stat.frozen = this.frozen }
+    internal fun initialize(column: StatColumn<*>) {
+        if (!column.isPresent(this.slot)) {
+            column.create(this.slot, this.frozen)
+        }
+        val unprocessed = this.unprocessed.remove(column.type.id)
+        if (unprocessed != null) {
+            column.deserialize(this.slot, unprocessed.first)
+        }
     }
-}
\ No newline at end of file
+}
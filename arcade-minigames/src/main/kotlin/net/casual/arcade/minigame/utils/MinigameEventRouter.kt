@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.minigame.utils
+
+import net.casual.arcade.events.InjectedListenerProvider
+import net.casual.arcade.events.ListenerProvider
+import net.casual.arcade.events.common.Event
+import net.casual.arcade.events.server.level.LevelEvent
+import net.casual.arcade.events.server.level.LocatedLevelEvent
+import net.casual.arcade.events.server.player.PlayerEvent
+import net.casual.arcade.extensions.event.ExtensionEvent
+import net.casual.arcade.minigame.Minigame
+import net.casual.arcade.minigame.Minigames
+import net.casual.arcade.minigame.events.MinigameEvent
+import net.casual.arcade.minigame.utils.MinigameUtils.getMinigame
+import net.casual.arcade.minigame.utils.MinigameUtils.minigame
+import java.util.function.Consumer
+
+/**
+ * This routes events to the injected listener providers of
+ * only the minigames that the event is relevant to.
+ *
+ * The routing keys of an event type are resolved once per type.
+ * Players are routed using their minigame extension, and levels
+ * are routed using the level's minigame extension, so the cost of
+ * routing scales with the number of relevant minigames rather than
+ * the number of running minigames.
+ */
+internal object MinigameEventRouter: InjectedListenerProvider {
+    private const val PLAYER = 1
+    private const val LEVEL = 2
+    private const val LOCATED = 4
+    private const val MINIGAME = 8
+
+    private val routes = object: ClassValue<Int>() {
+        override fun computeValue(type: Class<*>): Int {
+            return computeRoute(type)
+        }
+    }
+
+    override fun injectListenerProviders(event: Event, consumer: Consumer<ListenerProvider>) {
+        val route = this.routes.get(event.javaClass)
+        if (route == 0) {
+            return
+        }
+
+        var player: Minigame? = null
+        if ((route and PLAYER) != 0) {
+            player = (event as PlayerEvent).player.getMinigame()
+            if (player != null) {
+                consumer.accept(player.events.getInjectedProvider())
+            }
+        }
+
+        val level = if ((route and LEVEL) != 0) (event as LevelEvent).level.minigame else null
+        if (level != null) {
+            val pos = if ((route and LOCATED) != 0) (event as LocatedLevelEvent).pos else null
+            for (minigame in level.getMinigamesUnsafe()) {
+                if (minigame !== player && (pos == null || minigame.levels.has(level.level, pos))) {
+                    consumer.accept(minigame.events.getInjectedProvider())
+                }
+            }
+        }
+
+        if ((route and MINIGAME) != 0) {
+            val minigame = (event as MinigameEvent).minigame
+            if (minigame === player) {
+                return
+            }
+            if (level != null) {
+                val pos = if ((route and LOCATED) != 0) (event as LocatedLevelEvent).pos else null
+                if (level.hasMinigame(minigame, pos)) {
+                    return
+                }
+            }
+            consumer.accept(minigame.events.getInjectedProvider())
+        }
+    }
+
+    override fun mayProvideListenersFor(type: Class<out Event>): Boolean {
+        if (this.routes.get(type) == 0) {
+            return false
+        }
+        return Minigames.all().any { minigame ->
+            minigame.events.getInjectedProvider().getListenersFor(type).isNotEmpty()
+        }
+    }
+
+    override fun mayProvideListenersFor(type: Class<out Event>, key: Class<*>): Boolean {
+        if (this.routes.get(type) == 0) {
+            return false
+        }
+        return Minigames.all().any { minigame ->
+            minigame.events.getInjectedProvider().getListenersFor(type).any { it.acceptsKey(key) }
+        }
+    }
+
+    private fun computeRoute(type: Class<*>): Int {
+        if (ExtensionEvent::class.java.isAssignableFrom(type)) {
+            return 0
+        }
+        var route = 0
+        if (PlayerEvent::class.java.isAssignableFrom(type)) {
+            route = route or PLAYER
+        }
+        if (LevelEvent::class.java.isAssignableFrom(type)) {
+            route = route or LEVEL
+        }
+        if (LocatedLevelEvent::class.java.isAssignableFrom(type)) {
+            route = route or LOCATED
+        }
+        if (MinigameEvent::class.java.isAssignableFrom(type)) {
+            route = route or MINIGAME
+        }
+        return route
+    }
+}
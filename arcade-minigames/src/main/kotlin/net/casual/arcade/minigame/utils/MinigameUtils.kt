@@ -6,22 +6,16 @@ package net.casual.arcade.minigame.utils
 
 import com.mojang.brigadier.builder.ArgumentBuilder
 import com.mojang.brigadier.exceptions.DynamicCommandExceptionType
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet
 import net.casual.arcade.events.EventListener
 import net.casual.arcade.events.GlobalEventHandler
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.common.Event
-import net.casual.arcade.events.server.level.LevelEvent
-import net.casual.arcade.events.server.level.LocatedLevelEvent
-import net.casual.arcade.events.server.player.PlayerEvent
-import net.casual.arcade.extensions.event.ExtensionEvent
 import net.casual.arcade.extensions.event.LevelExtensionEvent
 import net.casual.arcade.extensions.event.LevelExtensionEvent.Companion.getExtension
 import net.casual.arcade.extensions.event.PlayerExtensionEvent.Companion.getExtension
 import net.casual.arcade.minigame.Minigame
 import net.casual.arcade.minigame.annotation.Listener
 import net.casual.arcade.minigame.annotation.MinigameEventListener
-import net.casual.arcade.minigame.events.MinigameEvent
 import net.casual.arcade.minigame.extensions.LevelMinigameExtension
 import net.casual.arcade.minigame.extensions.PlayerMinigameExtension
 import net.casual.arcade.minigame.managers.MinigameTickRateManager
@@ -44,12 +38,20 @@ import net.minecraft.server.level.ServerLevel
 import net.minecraft.server.level.ServerPlayer
 import net.minecraft.world.entity.Entity
 import org.jetbrains.annotations.ApiStatus.Internal
+import java.lang.invoke.LambdaMetafactory
 import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier
 import java.util.function.Predicate
 
 public object MinigameUtils {
+    private val listeners = object: ClassValue<List<ListenerMetadata>>() {
+        override fun computeValue(type: Class<*>): List<ListenerMetadata> {
+            return parseListenerMetadata(type)
+        }
+    }
+
     public val NO_MINIGAME_IN_CONTEXT: DynamicCommandExceptionType = DynamicCommandExceptionType {
         Component.translatable("minigame.command.context.noMinigameOfType", it)
     }
@@ -137,7 +139,7 @@ public object MinigameUtils {
     }
 
     public fun <T: ArgumentBuilder<CommandSourceStack, T>> T.requiresAdminOrPermission(level: Int = 2): T {
-        return this.requires { source -> source.isMinigameAdminOrHasPermission(level) }
+        return this.requires(AdminOrPermissionRequirement(level))
     }
 
     public fun CommandSourceStack.isMinigameAdminOrHasPermission(level: Int = 2): Boolean {
@@ -193,12 +195,8 @@ public object MinigameUtils {
     }
 
     internal fun parseMinigameEvents(minigame: Minigame, declarer: Any = minigame) {
-        var type: Class<*> = declarer::class.java
-        while (type != Any::class.java) {
-            for (method in type.declaredMethods) {
-                parseMinigameEventMethod(minigame, declarer, method)
-            }
-            type = type.superclass
+        for (listener in listeners.get(declarer::class.java)) {
+            parseMinigameEventMethod(minigame, declarer, listener)
         }
     }
 
@@ -208,41 +206,20 @@ public object MinigameUtils {
         }
 
         // This allows us to inject listener providers
-        GlobalEventHandler.Server.addInjectedProvider { event, consumer ->
-            if (event is ExtensionEvent) {
-                return@addInjectedProvider
-            }
-            val minigames = ObjectOpenHashSet<Minigame>(3)
-            if (event is PlayerEvent) {
-                val minigame = event.player.getMinigame()
-                if (minigame != null) {
-                    minigames.add(minigame)
-                }
-            }
-            if (event is LocatedLevelEvent) {
-                minigames.addAll(event.level.getMinigames(event.pos))
-            } else if (event is LevelEvent) {
-                minigames.addAll(event.level.getMinigames())
-            }
-            if (event is MinigameEvent) {
-                minigames.add(event.minigame)
-            }
-            for (minigame in minigames) {
-                consumer.accept(minigame.events.getInjectedProvider())
-            }
-        }
+        GlobalEventHandler.Server.addInjectedProvider(MinigameEventRouter)
     }
 
     private fun parseMinigameEventMethod(
         minigame: Minigame,
         declarer: Any,
-        method: Method
+        metadata: ListenerMetadata
     ) {
-        val event = method.getAnnotation(Listener::class.java) ?: return
-        if (!Modifier.isPrivate(method.modifiers)) {
-            ArcadeUtils.logger.warn("MinigameEventListener was declared non-private, it should be private!")
+        val event = metadata.annotation
+        val type = metadata.type
+        val invoker = metadata.invoker
+        val listener = EventListener.of<Event>(event.priority, event.phase, event.requiresMainThread) {
+            invoker.invoke(declarer, it)
         }
-        val (type, listener) = createEventListener(declarer, method, event)
 
         val during = event.during
         if (during.phases.isNotEmpty()) {
@@ -281,11 +258,23 @@ public object MinigameUtils {
         minigame.events.register(type = type, flags = event.flags, listener = listener)
     }
 
-    private fun createEventListener(
-        declarer: Any,
-        method: Method,
-        event: Listener
-    ): Pair<Class<Event>, EventListener<Event>> {
+    private fun parseListenerMetadata(declarer: Class<*>): List<ListenerMetadata> {
+        val listeners = ArrayList<ListenerMetadata>()
+        var type: Class<*> = declarer
+        while (type != Any::class.java) {
+            for (method in type.declaredMethods) {
+                val event = method.getAnnotation(Listener::class.java) ?: continue
+                if (!Modifier.isPrivate(method.modifiers)) {
+                    ArcadeUtils.logger.warn("MinigameEventListener was declared non-private, it should be private!")
+                }
+                listeners.add(createListenerMetadata(method, event))
+            }
+            type = type.superclass
+        }
+        return listeners
+    }
+
+    private fun createListenerMetadata(method: Method, event: Listener): ListenerMetadata {
         if (method.parameterCount != 1) {
             throw IllegalArgumentException("Minigame Listener ($method) has unexpected parameter count, should be 1")
         }
@@ -298,10 +287,60 @@ public object MinigameUtils {
         @Suppress("UNCHECKED_CAST")
         type as Class<Event>
 
-        val priority = event.priority
+        return ListenerMetadata(type, event, createListenerInvoker(method))
+    }
 
+    private fun createListenerInvoker(method: Method): ListenerInvoker {
         method.isAccessible = true
-        val handle = MethodHandles.lookup().unreflect(method)
-        return type to EventListener.of(priority, event.phase, event.requiresMainThread) { handle.invoke(declarer, it) }
+        val lookup = MethodHandles.privateLookupIn(method.declaringClass, MethodHandles.lookup())
+        val handle = lookup.unreflect(method)
+        if (!Modifier.isStatic(method.modifiers)) {
+            try {
+                // Spins a class that calls the method directly, so calls can be inlined
+                val site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "invoke",
+                    MethodType.methodType(ListenerInvoker::class.java),
+                    MethodType.methodType(Void.TYPE, Any::class.java, Event::class.java),
+                    handle,
+                    MethodType.methodType(Void.TYPE, method.declaringClass, method.parameterTypes[0])
+                )
+                return site.target.invoke() as ListenerInvoker
+            } catch (exception: Exception) {
+                ArcadeUtils.logger.warn("Failed to create direct invoker for Minigame Listener ($method)", exception)
+            }
+        }
+        // Static listeners ignore the declarer
+        val receiver = if (Modifier.isStatic(method.modifiers)) {
+            MethodHandles.dropArguments(handle, 0, Any::class.java)
+        } else {
+            handle
+        }
+        val exact = receiver.asType(MethodType.methodType(Any::class.java, Any::class.java, Event::class.java))
+        return ListenerInvoker { declarer, event -> exact.invokeExact(declarer, event) }
     }
+
+    /**
+     * Invokes a [Listener] method on a given declarer.
+     */
+    internal fun interface ListenerInvoker {
+        fun invoke(declarer: Any, event: Event)
+    }
+
+    /**
+     * The requirement for [requiresAdminOrPermission], this only depends on
+     * the player's permission level and minigame roles, so command trees
+     * which use it may still be shared between players with the same roles.
+     */
+    internal class AdminOrPermissionRequirement(private val level: Int): Predicate<CommandSourceStack> {
+        override fun test(source: CommandSourceStack): Boolean {
+            return source.isMinigameAdminOrHasPermission(this.level)
+        }
+    }
+
+    private class ListenerMetadata(
+        val type: Class<Event>,
+        val annotation: Listener,
+        val invoker: ListenerInvoker
+    )
 }
\ No newline at end of file
@@ -9,8 +9,7 @@ import eu.pb4.polymer.virtualentity.api.VirtualEntityUtils
 import eu.pb4.polymer.virtualentity.api.attachment.EntityAttachment
 import net.casual.arcade.events.GlobalEventHandler
 import net.casual.arcade.events.ListenerRegistry.Companion.register
-import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent
-import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.replacePacket
+import net.casual.arcade.events.server.player.PlayerClientboundPacketEvent.Companion.registerPacket
 import net.casual.arcade.events.server.player.PlayerPoseEvent
 import net.casual.arcade.extensions.EntityExtension
 import net.casual.arcade.extensions.Extension
@@ -21,11 +20,8 @@ import net.casual.arcade.nametags.ArcadeNametags
 import net.casual.arcade.nametags.Nametag
 import net.casual.arcade.nametags.virtual.NametagElement
 import net.casual.arcade.nametags.virtual.NametagElementHolder
-import net.casual.arcade.utils.asClientGamePacket
-import net.casual.arcade.utils.modify
 import net.minecraft.network.protocol.Packet
 import net.minecraft.network.protocol.game.ClientGamePacketListener
-import net.minecraft.network.protocol.game.ClientboundBundlePacket
 import net.minecraft.network.protocol.game.ClientboundSetPassengersPacket
 import net.minecraft.server.level.ServerPlayer
 import net.minecraft.world.entity.Entity
@@ -90,8 +86,10 @@ public class EntityNametagExtension(entity: Entity): EntityExtension(entity) {
             GlobalEventHandler.Server.register<EntityExtensionEvent> { event ->
                 event.addExtension(::EntityNametagExtension)
             }
-            GlobalEventHandler.Server.register<PlayerClientboundPacketEvent> { event ->
-                event.replacePacket(::updatePacket)
+            GlobalEventHandler.Server.registerPacket<ClientboundSetPassengersPacket> { event, packet ->
+                if (!event.isCancelled()) {
+                    event.packet = updatePassengersPacket(event.player, packet)
+                }
             }
             GlobalEventHandler.Server.register<PlayerPoseEvent> { (player, previous, updated) ->
                 if (previous != updated) {
@@ -104,14 +102,10 @@ public class EntityNametagExtension(entity: Entity): EntityExtension(entity) {
             }
         }
 
-        private fun updatePacket(player: ServerPlayer, packet: Packet<*>): Packet<ClientGamePacketListener> {
-            if (packet is ClientboundBundlePacket) {
-                return packet.modify(player, this::updatePacket)
-            }
-            if (packet !is ClientboundSetPassengersPacket) {
-                return packet.asClientGamePacket()
-            }
-
+        private fun updatePassengersPacket(
+            player: ServerPlayer,
+            packet: ClientboundSetPassengersPacket
+        ): Packet<ClientGamePacketListener> {
             val vehicle = player.level().getEntity(packet.vehicle) ?: return packet
             val holder = vehicle.getExtension<EntityNametagExtension>().getHolder()
             if (holder != null && holder.isMountedToOwner()) {
@@ -4,36 +4,75 @@
  */
 package net.casual.arcade.host
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import io.netty.buffer.ByteBuf
+import io.netty.buffer.ByteBufUtil
 import io.netty.buffer.Unpooled
+import io.netty.channel.ChannelFutureListener
 import io.netty.channel.ChannelHandlerContext
-import io.netty.handler.stream.ChunkedStream
+import io.netty.channel.DefaultFileRegion
 import kotlinx.serialization.EncodeDefault
 import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.json.Json
+import net.casual.arcade.host.data.HostedPack
 import net.casual.arcade.host.data.ResolvablePackURL
+import net.casual.arcade.host.pack.PathPack
+import net.casual.arcade.host.pack.ReadablePack
+import net.casual.arcade.host.utils.PackHttpUtils
+import net.casual.arcade.host.utils.PackHttpUtils.ByteRange
 import net.casual.arcade.utils.ArcadeUtils
 import net.mcbrawls.inject.api.InjectorContext
 import net.mcbrawls.inject.fabric.InjectFabric
 import net.mcbrawls.inject.http.HttpByteBuf
 import net.mcbrawls.inject.http.HttpInjector
 import net.mcbrawls.inject.http.HttpRequest
-import java.io.InputStream
+import java.io.IOException
 import java.net.URLDecoder
 import java.net.URLEncoder
-import java.nio.charset.StandardCharsets
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ArrayBlockingQueue
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 import kotlin.io.path.isRegularFile
 import kotlin.io.path.readText
 import kotlin.io.path.writeText
 
 /**
  * This is a global pack hosting instance
+ *
+ * Packs are served on the same port as the server. Packs backed by
+ * a file, see [PathPack], are transferred with zero-copy file regions,
+ * other packs are streamed from a bounded pool of download threads
+ * so the server's event loop is never blocked on pack I/O.
+ *
+ * Responses carry an `ETag` derived from the pack hash, supporting
+ * conditional requests and single byte range requests.
  */
 public object GlobalPackHost: PackHost() {
+    private const val DOWNLOAD_THREADS = 2
+    private const val MAX_QUEUED_DOWNLOADS = 128
+    private const val CHUNK_SIZE = 64 * 1024
+    private const val WRITE_TIMEOUT_SECONDS = 30L
+
+    private val CRLF = byteArrayOf('\r'.code.toByte(), '\n'.code.toByte())
+    private val LAST_CHUNK = "0\r\n\r\n".toByteArray(Charsets.US_ASCII)
+
     private val config = this.readConfig()
 
+    private val downloads = ThreadPoolExecutor(
+        DOWNLOAD_THREADS,
+        DOWNLOAD_THREADS,
+        30,
+        TimeUnit.SECONDS,
+        ArrayBlockingQueue(MAX_QUEUED_DOWNLOADS),
+        ThreadFactoryBuilder().setNameFormat("resource-pack-download-%d").setDaemon(true).build()
+    ).apply { this.allowCoreThreadTimeOut(true) }
+
     public fun load() {
         InjectFabric.INSTANCE.registerInjector(Injector)
     }
@@ -55,33 +94,171 @@ public object GlobalPackHost: PackHost() {
         return ResolvablePackURL.local("http", null, null, "arcade/packs/${encoded}")
     }
 
-    private fun download(ctx: ChannelHandlerContext, stream: InputStream) {
+    private fun download(ctx: ChannelHandlerContext, hosted: HostedPack, request: HttpRequest) {
+        val etag = PackHttpUtils.etag(hosted)
+        if (PackHttpUtils.isNotModified(this.getHeader(request, "if-none-match"), etag)) {
+            this.writeStatus(ctx, 304, "Not Modified", "etag" to etag)
+            return
+        }
+
+        val pack = hosted.pack
+        if (pack is PathPack) {
+            this.downloadFile(ctx, pack.path, etag, request)
+            return
+        }
+
+        try {
+            this.downloads.execute { this.downloadStream(ctx, pack, etag, request) }
+        } catch (_: RejectedExecutionException) {
+            this.writeStatus(ctx, 503, "Service Unavailable")
+        }
+    }
+
+    private fun downloadFile(ctx: ChannelHandlerContext, path: Path, etag: String, request: HttpRequest) {
+        val channel = try {
+            FileChannel.open(path, StandardOpenOption.READ)
+        } catch (exception: IOException) {
+            logger.error("Failed to open pack file $path", exception)
+            this.writeStatus(ctx, 500, "Internal Server Error")
+            return
+        }
+
+        val length = channel.size()
+        val range = this.getRange(request, etag, length)
+        if (range === ByteRange.UNSATISFIABLE) {
+            channel.close()
+            this.writeUnsatisfiable(ctx, etag, length)
+            return
+        }
+
+        this.writeHeaders(ctx, etag, length, range)
+        // The file region takes ownership of the channel and closes it once transferred
+        if (range == null) {
+            ctx.write(DefaultFileRegion(channel, 0, length))
+        } else {
+            ctx.write(DefaultFileRegion(channel, range.start, range.length))
+        }
+        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE)
+    }
+
+    private fun downloadStream(ctx: ChannelHandlerContext, pack: ReadablePack, etag: String, request: HttpRequest) {
+        try {
+            val length = pack.length().takeIf { it > 0 }
+            val range = if (length != null) this.getRange(request, etag, length) else null
+            if (range === ByteRange.UNSATISFIABLE) {
+                this.writeUnsatisfiable(ctx, etag, length!!)
+                return
+            }
+
+            pack.stream().use { stream ->
+                val chunked = length == null
+                this.writeHeaders(ctx, etag, length, range)
+
+                var remaining = Long.MAX_VALUE
+                if (range != null) {
+                    stream.skipNBytes(range.start)
+                    remaining = range.length
+                }
+
+                val channel = ctx.channel()
+                while (remaining > 0 && channel.isActive) {
+                    val size = minOf(remaining, CHUNK_SIZE.toLong()).toInt()
+                    val buf = ctx.alloc().buffer(size)
+                    val read = try {
+                        buf.writeBytes(stream, size)
+                    } catch (exception: IOException) {
+                        buf.release()
+                        throw exception
+                    }
+                    if (read < 0) {
+                        buf.release()
+                        break
+                    }
+                    remaining -= read
+
+                    val future = ctx.writeAndFlush(if (chunked) this.chunk(ctx, buf) else buf)
+                    // Apply backpressure, we don't want to buffer the entire pack in memory,
+                    // clients that stop reading must not hold on to a download thread
+                    if (!channel.isWritable && !future.await(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        logger.warn("Timed out streaming pack ${pack.name} to ${channel.remoteAddress()}")
+                        ctx.close()
+                        return
+                    }
+                }
+
+                val last = if (chunked) Unpooled.wrappedBuffer(LAST_CHUNK) else Unpooled.EMPTY_BUFFER
+                ctx.writeAndFlush(last).addListener(ChannelFutureListener.CLOSE)
+            }
+        } catch (exception: Exception) {
+            logger.error("Failed to stream pack ${pack.name}", exception)
+            ctx.close()
+        }
+    }
+
+    private fun getRange(request: HttpRequest, etag: String, length: Long): ByteRange? {
+        return PackHttpUtils.parseRange(
+            this.getHeader(request, "range"),
+            this.getHeader(request, "if-range"),
+            etag,
+            length
+        )
+    }
+
+    private fun getHeader(request: HttpRequest, name: String): String? {
+        for ((key, value) in request.headers) {
+            if (key.equals(name, true)) {
+                return value
+            }
+        }
+        return null
+    }
+
+    private fun chunk(ctx: ChannelHandlerContext, content: ByteBuf): ByteBuf {
+        val header = ByteBufUtil.writeAscii(ctx.alloc(), "${content.readableBytes().toString(16)}\r\n")
+        return ctx.alloc().compositeBuffer(3)
+            .addComponents(true, header, content, Unpooled.wrappedBuffer(CRLF))
+    }
+
+    private fun writeHeaders(ctx: ChannelHandlerContext, etag: String, length: Long?, range: ByteRange?) {
         val buf = HttpByteBuf.httpBuf(ctx)
-        buf.writeStatusLine("1.1", 200, "OK")
+        if (range == null) {
+            buf.writeStatusLine("1.1", 200, "OK")
+        } else {
+            buf.writeStatusLine("1.1", 206, "Partial Content")
+        }
         buf.writeHeader("user-agent", "kotlin/arcade-pack-download-host")
         buf.writeHeader("content-type", "application/octet-stream")
-        buf.writeHeader("transfer-encoding", "chunked")
+        buf.writeHeader("etag", etag)
+        if (length != null) {
+            buf.writeHeader("accept-ranges", "bytes")
+            if (range != null) {
+                buf.writeHeader("content-range", range.toContentRange(length))
+                buf.writeHeader("content-length", range.length.toString())
+            } else {
+                buf.writeHeader("content-length", length.toString())
+            }
+        } else {
+            buf.writeHeader("transfer-encoding", "chunked")
+        }
+        buf.writeHeader("connection", "close")
         buf.writeText("")
-        ctx.writeAndFlush(buf.inner())
-
-        val chunked = ChunkedStream(stream)
-        ctx.writeAndFlush(chunked)
+        ctx.write(buf.inner())
+    }
 
-        var read: Int
-        val buffer = ByteArray(8192)
-        while (true) {
-            read = stream.read(buffer)
-            if (read == -1) {
-                break
-            }
+    private fun writeUnsatisfiable(ctx: ChannelHandlerContext, etag: String, length: Long) {
+        this.writeStatus(ctx, 416, "Range Not Satisfiable", "etag" to etag, "content-range" to "bytes */${length}")
+    }
 
-            val chunkHeader = "${read.toString(16)}\r\n"
-            ctx.write(Unpooled.copiedBuffer(chunkHeader, StandardCharsets.US_ASCII))
-            ctx.write(Unpooled.copiedBuffer(buffer, 0, read))
-            ctx.write(Unpooled.copiedBuffer("\r\n", StandardCharsets.US_ASCII))
+    private fun writeStatus(ctx: ChannelHandlerContext, code: Int, message: String, vararg headers: Pair<String, String>) {
+        val buf = HttpByteBuf.httpBuf(ctx)
+        buf.writeStatusLine("1.1", code, message)
+        for ((name, value) in headers) {
+            buf.writeHeader(name, value)
         }
-
-        ctx.writeAndFlush(Unpooled.copiedBuffer("0\r\n\r\n", StandardCharsets.US_ASCII))
+        buf.writeHeader("content-length", "0")
+        buf.writeHeader("connection", "close")
+        buf.writeText("")
+        ctx.writeAndFlush(buf.inner()).addListener(ChannelFutureListener.CLOSE)
     }
 
     private fun readConfig(): Config {
@@ -129,9 +306,7 @@ public object GlobalPackHost: PackHost() {
                 return super.onRead(ctx, buf)
             }
 
-            hosted.pack.stream().use {
-                download(ctx, it)
-            }
+            download(ctx, hosted, request)
             return true
         }
 
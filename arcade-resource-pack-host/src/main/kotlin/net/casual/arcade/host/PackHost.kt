@@ -4,7 +4,6 @@
  */
 package net.casual.arcade.host
 
-import com.google.common.hash.Hashing
 import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.sun.net.httpserver.HttpExchange
 import com.sun.net.httpserver.HttpServer
@@ -13,14 +12,21 @@ import com.sun.net.httpserver.HttpsServer
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap
 import net.casual.arcade.host.data.HostedPack
 import net.casual.arcade.host.data.ResolvablePackURL
+import net.casual.arcade.host.pack.PathPack
 import net.casual.arcade.host.pack.ReadablePack
 import net.casual.arcade.host.pack.ReadablePackSupplier
+import net.casual.arcade.host.utils.PackHttpUtils
+import net.casual.arcade.host.utils.PackHttpUtils.ByteRange
 import net.minecraft.Util
 import org.apache.logging.log4j.LogManager
-import java.io.InputStream
 import java.net.InetSocketAddress
 import java.net.URLDecoder
 import java.net.URLEncoder
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.MessageDigest
+import java.util.HexFormat
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ExecutorService
@@ -103,8 +109,7 @@ public abstract class PackHost {
 
     private fun hostPack(pack: ReadablePack): CompletableFuture<HostedPack> {
         return this.async {
-            @Suppress("DEPRECATION")
-            val hash = Hashing.sha1().hashBytes(pack.stream().use(InputStream::readBytes)).toString()
+            val hash = if (pack is PathPack) hashFile(pack) else hash(pack)
 
             val zipped = if (pack.name.endsWith(".zip")) pack.name else "${pack.name}.zip"
             val hosted = HostedPack(pack, this.createUrl(zipped), hash)
@@ -125,10 +130,22 @@ public abstract class PackHost {
         }
     }
 
+    private data class FileHash(
+        val size: Long,
+        val modified: Long,
+        val hash: String
+    )
+
     private class Impl(
         val port: Int,
-        val server: HttpServer
+        val server: HttpServer,
+        threads: Int
     ): PackHost() {
+        private val workers = Executors.newFixedThreadPool(
+            threads,
+            ThreadFactoryBuilder().setNameFormat("resource-pack-host-worker-%d").setDaemon(true).build()
+        )
+
         private lateinit var starting: CompletableFuture<Boolean>
 
         val isSecure: Boolean
@@ -138,7 +155,7 @@ public abstract class PackHost {
             if (!this::starting.isInitialized) {
                 this.starting = this.async {
                     try {
-                        this.server.executor = this.executor
+                        this.server.executor = this.workers
                         this.server.createContext("/") { exchange ->
                             exchange.use(this::handleRequest)
                         }
@@ -155,6 +172,7 @@ public abstract class PackHost {
 
         override fun stop() {
             this.executor.shutdownNow()
+            this.workers.shutdownNow()
             this.server.stop(0)
         }
 
@@ -177,11 +195,47 @@ public abstract class PackHost {
                 return
             }
 
-            exchange.responseHeaders.add("user-agent", "kotlin/arcade-pack-download-host")
-            exchange.sendResponseHeaders(200, hosted.pack.length())
+            val etag = PackHttpUtils.etag(hosted)
+            val headers = exchange.responseHeaders
+            headers.add("user-agent", "kotlin/arcade-pack-download-host")
+            headers.add("etag", etag)
+            if (PackHttpUtils.isNotModified(exchange.requestHeaders.getFirst("if-none-match"), etag)) {
+                exchange.sendResponseHeaders(304, -1)
+                return
+            }
+
+            val length = hosted.pack.length()
+            if (length > 0) {
+                headers.add("accept-ranges", "bytes")
+            }
+            val range = PackHttpUtils.parseRange(
+                exchange.requestHeaders.getFirst("range"),
+                exchange.requestHeaders.getFirst("if-range"),
+                etag,
+                length
+            )
+            if (range === ByteRange.UNSATISFIABLE) {
+                headers.add("content-range", "bytes */${length}")
+                exchange.sendResponseHeaders(416, -1)
+                return
+            }
+
+            if (range == null) {
+                exchange.sendResponseHeaders(200, length)
+                exchange.responseBody.use { response ->
+                    hosted.pack.stream().use { stream ->
+                        stream.transferTo(response)
+                    }
+                }
+                return
+            }
+
+            headers.add("content-range", range.toContentRange(length))
+            exchange.sendResponseHeaders(206, range.length)
             exchange.responseBody.use { response ->
                 hosted.pack.stream().use { stream ->
-                    stream.transferTo(response)
+                    stream.skipNBytes(range.start)
+                    PackHttpUtils.copy(stream, response, range.length)
                 }
             }
         }
@@ -189,23 +243,32 @@ public abstract class PackHost {
 
     public companion object {
         private const val DEFAULT_PORT: Int = 24464
+        private const val DEFAULT_THREADS: Int = 4
+        private const val BUFFER_SIZE: Int = 64 * 1024
 
         internal val logger = LogManager.getLogger("ResourcePackHost")
 
+        private val hashes = ConcurrentHashMap<Path, FileHash>()
+
         /**
          * Creates an instance of [PackHost] with a specified port.
          * Supports using SSL by passing in a [context].
          *
+         * Downloads are served concurrently by a pool of [threads].
+         *
          * @param port The port of the pack host.
          * @param context The [SSLContext], null by default.
+         * @param threads The number of threads serving downloads.
          * @return A [PackHost] instance.
          */
         @JvmStatic
         @JvmOverloads
         public fun create(
             port: Int = DEFAULT_PORT,
-            context: SSLContext? = null
+            context: SSLContext? = null,
+            threads: Int = DEFAULT_THREADS
         ): PackHost {
+            require(threads > 0) { "Pack host must have at least one thread, got $threads" }
             val address = InetSocketAddress("0.0.0.0", port)
             val server: HttpServer
             if (context == null) {
@@ -214,7 +277,41 @@ public abstract class PackHost {
                 server = HttpsServer.create(address, 0)
                 server.httpsConfigurator = HttpsConfigurator(context)
             }
-            return Impl(port, server)
+            return Impl(port, server, threads)
+        }
+
+        /**
+         * Hashes a file backed pack, the hash is cached by the
+         * path, size and last modified time of the file, so
+         * unchanged files are never re-read.
+         */
+        private fun hashFile(pack: PathPack): String {
+            val path = pack.path.toAbsolutePath()
+            val attributes = Files.readAttributes(path, BasicFileAttributes::class.java)
+            val size = attributes.size()
+            val modified = attributes.lastModifiedTime().toMillis()
+            val cached = this.hashes[path]
+            if (cached != null && cached.size == size && cached.modified == modified) {
+                return cached.hash
+            }
+            val hash = this.hash(pack)
+            this.hashes[path] = FileHash(size, modified, hash)
+            return hash
+        }
+
+        private fun hash(pack: ReadablePack): String {
+            val digest = MessageDigest.getInstance("SHA-1")
+            val buffer = ByteArray(BUFFER_SIZE)
+            pack.stream().use { stream ->
+                while (true) {
+                    val read = stream.read(buffer)
+                    if (read < 0) {
+                        break
+                    }
+                    digest.update(buffer, 0, read)
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest())
         }
     }
 }
\ No newline at end of file
@@ -11,7 +11,17 @@ import kotlin.io.path.inputStream
 import kotlin.io.path.isReadable
 import kotlin.io.path.name
 
-public class PathPack(private val path: Path): ReadablePack {
+/**
+ * A [ReadablePack] implementation that reads a zipped pack from a file.
+ *
+ * @param path The path to the zipped pack.
+ */
+public class PathPack(
+    /**
+     * The path to the zipped pack.
+     */
+    public val path: Path
+): ReadablePack {
     override val name: String
         get() = this.path.name
 
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.host.utils
+
+import net.casual.arcade.host.data.HostedPack
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * Utilities for handling conditional and range requests
+ * for hosted packs.
+ */
+internal object PackHttpUtils {
+    private const val BUFFER_SIZE = 64 * 1024
+
+    /**
+     * Creates the entity tag for a hosted pack, this is
+     * derived from the hash of the pack.
+     *
+     * @param hosted The hosted pack.
+     * @return The entity tag.
+     */
+    fun etag(hosted: HostedPack): String {
+        return "\"${hosted.hash}\""
+    }
+
+    /**
+     * Checks whether an `If-None-Match` header matches the
+     * given entity tag, in which case the response should
+     * be `304 Not Modified`.
+     *
+     * @param header The `If-None-Match` header value.
+     * @param etag The entity tag of the pack.
+     * @return Whether the pack is not modified.
+     */
+    fun isNotModified(header: String?, etag: String): Boolean {
+        if (header == null) {
+            return false
+        }
+        for (tag in header.split(',')) {
+            val trimmed = tag.trim()
+            if (trimmed == "*" || trimmed.removePrefix("W/") == etag) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * Parses a `Range` header for a pack of the given length.
+     *
+     * Only single byte ranges are supported, any other range
+     * header is ignored and the entire pack should be sent.
+     * If an `If-Range` header is present and does not match
+     * the entity tag, the range is also ignored.
+     *
+     * @param header The `Range` header value.
+     * @param ifRange The `If-Range` header value.
+     * @param etag The entity tag of the pack.
+     * @param length The length of the pack, or 0 if unknown.
+     * @return The requested range, [ByteRange.UNSATISFIABLE], or null if the whole pack should be sent.
+     */
+    fun parseRange(header: String?, ifRange: String?, etag: String, length: Long): ByteRange? {
+        if (header == null || length <= 0 || (ifRange != null && ifRange.trim() != etag)) {
+            return null
+        }
+        val trimmed = header.trim()
+        if (!trimmed.startsWith("bytes=") || trimmed.contains(',')) {
+            return null
+        }
+        val spec = trimmed.substring(6).trim()
+        val dash = spec.indexOf('-')
+        if (dash < 0) {
+            return null
+        }
+        val first = spec.substring(0, dash).trim()
+        val last = spec.substring(dash + 1).trim()
+        if (first.isEmpty()) {
+            // Suffix range, the last n bytes
+            val suffix = last.toLongOrNull() ?: return null
+            if (suffix <= 0) {
+                return ByteRange.UNSATISFIABLE
+            }
+            return ByteRange(maxOf(0, length - suffix), length - 1)
+        }
+        val start = first.toLongOrNull() ?: return null
+        val end = if (last.isEmpty()) length - 1 else last.toLongOrNull() ?: return null
+        if (start < 0 || end < start) {
+            return null
+        }
+        if (start >= length) {
+            return ByteRange.UNSATISFIABLE
+        }
+        return ByteRange(start, minOf(end, length - 1))
+    }
+
+    /**
+     * Copies a given number of bytes from an input stream
+     * to an output stream.
+     *
+     * @param input The stream to read from.
+     * @param output The stream to write to.
+     * @param count The number of bytes to copy.
+     */
+    fun copy(input: InputStream, output: OutputStream, count: Long) {
+        val buffer = ByteArray(BUFFER_SIZE)
+        var remaining = count
+        while (remaining > 0) {
+            val read = input.read(buffer, 0, minOf(remaining, BUFFER_SIZE.toLong()).toInt())
+            if (read < 0) {
+                break
+            }
+            output.write(buffer, 0, read)
+            remaining -= read
+        }
+    }
+
+    /**
+     * An inclusive range of bytes.
+     *
+     * @param start The first byte in the range.
+     * @param end The last byte in the range.
+     */
+    class ByteRange(val start: Long, val end: Long) {
+        /**
+         * The number of bytes in the range.
+         */
+        val length: Long
+            get() = this.end - this.start + 1
+
+        /**
+         * Creates the `Content-Range` header value.
+         *
+         * @param total The total length of the pack.
+         * @return The header value.
+         */
+        fun toContentRange(total: Long): String {
+            return "bytes ${this.start}-${this.end}/${total}"
+        }
+
+        companion object {
+            /**
+             * A range that cannot be satisfied, `416 Range Not Satisfiable`.
+             */
+            val UNSATISFIABLE = ByteRange(-1, -2)
+        }
+    }
+}
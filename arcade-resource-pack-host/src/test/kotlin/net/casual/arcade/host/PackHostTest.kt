@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.host
+
+import net.casual.arcade.host.pack.ReadablePack
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.TestInstance
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.net.ServerSocket
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PackHostTest {
+    private val data = ByteArray(100_000) { (it * 31).toByte() }
+    private val client = HttpClient.newHttpClient()
+
+    private lateinit var host: PackHost
+    private lateinit var uri: URI
+    private lateinit var etag: String
+
+    @BeforeAll
+    fun start() {
+        val port = ServerSocket(0).use { it.localPort }
+        this.host = PackHost.create(port)
+        val hosted = this.host.addPack(TestPack(this.data)).future.join()
+        this.host.start().join()
+        this.uri = URI.create("http://127.0.0.1:$port/test.zip")
+        this.etag = "\"${hosted.hash}\""
+    }
+
+    @AfterAll
+    fun stop() {
+        this.host.stop()
+    }
+
+    @Test
+    fun `responds with the whole pack`() {
+        val response = this.send()
+        assertEquals(200, response.statusCode())
+        assertEquals(this.etag, response.headers().firstValue("etag").orElse(null))
+        assertEquals("bytes", response.headers().firstValue("accept-ranges").orElse(null))
+        assertArrayEquals(this.data, response.body())
+    }
+
+    @Test
+    fun `responds with a byte range`() {
+        val response = this.send("range" to "bytes=100-199")
+        assertEquals(206, response.statusCode())
+        assertEquals("bytes 100-199/${this.data.size}", response.headers().firstValue("content-range").orElse(null))
+        assertArrayEquals(this.data.copyOfRange(100, 200), response.body())
+
+        val suffix = this.send("range" to "bytes=-10")
+        assertEquals(206, suffix.statusCode())
+        assertArrayEquals(this.data.copyOfRange(this.data.size - 10, this.data.size), suffix.body())
+    }
+
+    @Test
+    fun `responds not modified for matching tags`() {
+        val response = this.send("if-none-match" to this.etag)
+        assertEquals(304, response.statusCode())
+        assertEquals(0, response.body().size)
+
+        val modified = this.send("if-none-match" to "\"other\"")
+        assertEquals(200, modified.statusCode())
+    }
+
+    @Test
+    fun `responds unsatisfiable for ranges past the end`() {
+        val response = this.send("range" to "bytes=${this.data.size}-")
+        assertEquals(416, response.statusCode())
+        assertEquals("bytes */${this.data.size}", response.headers().firstValue("content-range").orElse(null))
+    }
+
+    @Test
+    fun `responds with the whole pack if the range is stale`() {
+        val response = this.send("range" to "bytes=100-199", "if-range" to "\"other\"")
+        assertEquals(200, response.statusCode())
+        assertArrayEquals(this.data, response.body())
+    }
+
+    private fun send(vararg headers: Pair<String, String>): HttpResponse<ByteArray> {
+        val builder = HttpRequest.newBuilder(this.uri).GET()
+        for ((name, value) in headers) {
+            builder.header(name, value)
+        }
+        return this.client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray())
+    }
+
+    private class TestPack(private val data: ByteArray): ReadablePack {
+        override val name: String = "test"
+
+        override fun stream(): InputStream {
+            return ByteArrayInputStream(this.data)
+        }
+
+        override fun length(): Long {
+            return this.data.size.toLong()
+        }
+    }
+}
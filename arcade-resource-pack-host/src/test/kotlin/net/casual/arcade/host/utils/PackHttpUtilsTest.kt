@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.host.utils
+
+import net.casual.arcade.host.utils.PackHttpUtils.ByteRange
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+class PackHttpUtilsTest {
+    @Test
+    fun `matches if-none-match tags`() {
+        assertFalse(PackHttpUtils.isNotModified(null, ETAG))
+        assertTrue(PackHttpUtils.isNotModified(ETAG, ETAG))
+        assertTrue(PackHttpUtils.isNotModified("*", ETAG))
+        assertTrue(PackHttpUtils.isNotModified("W/$ETAG", ETAG))
+        assertTrue(PackHttpUtils.isNotModified("\"other\", $ETAG", ETAG))
+        assertTrue(PackHttpUtils.isNotModified("  $ETAG  ", ETAG))
+        assertFalse(PackHttpUtils.isNotModified("\"other\"", ETAG))
+        assertFalse(PackHttpUtils.isNotModified("abc123", ETAG))
+        assertFalse(PackHttpUtils.isNotModified("", ETAG))
+    }
+
+    @Test
+    fun `parses single byte ranges`() {
+        assertRange(0, 99, PackHttpUtils.parseRange("bytes=0-99", null, ETAG, LENGTH))
+        assertRange(5, 5, PackHttpUtils.parseRange("bytes=5-5", null, ETAG, LENGTH))
+        assertRange(10, 19, PackHttpUtils.parseRange(" bytes=10 - 19 ", null, ETAG, LENGTH))
+    }
+
+    @Test
+    fun `parses open ended ranges`() {
+        assertRange(5, LENGTH - 1, PackHttpUtils.parseRange("bytes=5-", null, ETAG, LENGTH))
+        assertRange(LENGTH - 1, LENGTH - 1, PackHttpUtils.parseRange("bytes=${LENGTH - 1}-", null, ETAG, LENGTH))
+    }
+
+    @Test
+    fun `clamps ranges past the end`() {
+        assertRange(900, LENGTH - 1, PackHttpUtils.parseRange("bytes=900-5000", null, ETAG, LENGTH))
+    }
+
+    @Test
+    fun `parses suffix ranges`() {
+        assertRange(LENGTH - 100, LENGTH - 1, PackHttpUtils.parseRange("bytes=-100", null, ETAG, LENGTH))
+        // A suffix longer than the pack is the whole pack
+        assertRange(0, LENGTH - 1, PackHttpUtils.parseRange("bytes=-5000", null, ETAG, LENGTH))
+        assertSame(ByteRange.UNSATISFIABLE, PackHttpUtils.parseRange("bytes=-0", null, ETAG, LENGTH))
+    }
+
+    @Test
+    fun `rejects ranges starting past the end`() {
+        assertSame(ByteRange.UNSATISFIABLE, PackHttpUtils.parseRange("bytes=$LENGTH-", null, ETAG, LENGTH))
+        assertSame(ByteRange.UNSATISFIABLE, PackHttpUtils.parseRange("bytes=5000-6000", null, ETAG, LENGTH))
+    }
+
+    @Test
+    fun `ignores unsupported ranges`() {
+        assertNull(PackHttpUtils.parseRange(null, null, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("bytes=0-1,5-6", null, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("items=0-1", null, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("bytes=5", null, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("bytes=a-b", null, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("bytes=10-5", null, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("bytes=-", null, ETAG, LENGTH))
+    }
+
+    @Test
+    fun `ignores ranges for unknown lengths`() {
+        assertNull(PackHttpUtils.parseRange("bytes=0-99", null, ETAG, 0))
+    }
+
+    @Test
+    fun `ignores ranges when if-range does not match`() {
+        assertRange(0, 99, PackHttpUtils.parseRange("bytes=0-99", ETAG, ETAG, LENGTH))
+        assertNull(PackHttpUtils.parseRange("bytes=0-99", "\"other\"", ETAG, LENGTH))
+        // If-Range requires a strong comparison
+        assertNull(PackHttpUtils.parseRange("bytes=0-99", "W/$ETAG", ETAG, LENGTH))
+    }
+
+    @Test
+    fun `formats content ranges`() {
+        assertEquals("bytes 0-99/1000", ByteRange(0, 99).toContentRange(LENGTH))
+        assertEquals(100L, ByteRange(0, 99).length)
+    }
+
+    @Test
+    fun `copies a limited number of bytes`() {
+        val data = ByteArray(200_000) { it.toByte() }
+        val output = ByteArrayOutputStream()
+        PackHttpUtils.copy(ByteArrayInputStream(data), output, 150_000)
+        assertEquals(data.copyOf(150_000).toList(), output.toByteArray().toList())
+
+        // Copying more than is available stops at the end of the stream
+        output.reset()
+        PackHttpUtils.copy(ByteArrayInputStream(data), output, 300_000)
+        assertEquals(data.size, output.size())
+    }
+
+    private fun assertRange(start: Long, end: Long, range: ByteRange?) {
+        assertTrue(range != null && range !== ByteRange.UNSATISFIABLE, "Expected range $start-$end")
+        assertEquals(start, range!!.start)
+        assertEquals(end, range.end)
+    }
+
+    private companion object {
+        const val ETAG = "\"abc123\""
+        const val LENGTH = 1000L
+    }
+}
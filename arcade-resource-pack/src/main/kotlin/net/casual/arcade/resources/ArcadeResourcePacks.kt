@@ -30,7 +30,7 @@ public object ArcadeResourcePacks: ModInitializer {
     private val container = FabricLoader.getInstance().getModContainer("arcade-resource-pack").get()
 
     public val ACTION_BAR_FONT_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("action_bar_font") {
+        NamedResourcePackCreator.named("action_bar_font", cached = true) {
             addAssetSource(path("packs/ActionBarFont"))
             for (i in 1..64) {
                 addFont(ResourceUtils.arcade("default_shifted_down_$i")) { FontUtils.createDefaultFont(i) }
@@ -40,7 +40,7 @@ public object ArcadeResourcePacks: ModInitializer {
     }
 
     public val MINI_ACTION_BAR_FONT_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("mini_action_bar_font") {
+        NamedResourcePackCreator.named("mini_action_bar_font", cached = true) {
             addAssetSource(path("packs/MiniActionBarFont"))
             for (i in 1..64) {
                 addFont(ResourceUtils.arcade("mini_shifted_down_$i")) { FontUtils.createMiniFont(i) }
@@ -50,7 +50,7 @@ public object ArcadeResourcePacks: ModInitializer {
     }
 
     public val SPACING_FONT_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("spacing_font") {
+        NamedResourcePackCreator.named("spacing_font", cached = true) {
             addFont(SpacingFontResources)
             addAssetSource(path("packs/SpacingFont"))
             packDescription = Component.literal("Provides spacing utilities for text")
@@ -58,7 +58,7 @@ public object ArcadeResourcePacks: ModInitializer {
     }
 
     public val PADDING_FONT_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("padding_font") {
+        NamedResourcePackCreator.named("padding_font", cached = true) {
             addAssetSource(path("packs/PaddingFont"))
             addFont(PaddingSplitFontResources)
             addFont(PaddingNoSplitFontResources)
@@ -67,7 +67,7 @@ public object ArcadeResourcePacks: ModInitializer {
     }
 
     public val PLAYER_HEADS_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("player_heads") {
+        NamedResourcePackCreator.named("player_heads", cached = true) {
             val location = path("packs/PlayerHeads")
             addAssetSource(location)
             addFont(PlayerHeadFont)
@@ -77,21 +77,21 @@ public object ArcadeResourcePacks: ModInitializer {
     }
 
     public val HIDE_PLAYER_LIST_HEADS_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("hide_player_list_heads") {
+        NamedResourcePackCreator.named("hide_player_list_heads", cached = true) {
             addAssetSource(path("packs/HidePlayerListHeads"))
             packDescription = Component.literal("Utilities for hiding player list heads")
         }
     }
 
     public val HIDE_PLAYER_LIST_PING_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("hide_player_list_ping") {
+        NamedResourcePackCreator.named("hide_player_list_ping", cached = true) {
             addAssetSource(path("packs/HidePlayerListPing"))
             packDescription = Component.literal("Utilities for hiding player list ping")
         }
     }
 
     public val MINI_MINECRAFT_FONT: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("mini_minecraft") {
+        NamedResourcePackCreator.named("mini_minecraft", cached = true) {
             addAssetSource(path("packs/MiniMinecraftFont"))
             addFont(ComponentUtils.MINI_FONT, FontUtils::createMiniFont)
             packDescription = Component.literal("Mini Minecraft style font")
@@ -99,7 +99,7 @@ public object ArcadeResourcePacks: ModInitializer {
     }
 
     public val BOUNDARY_SHADER: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("boundary_shader") {
+        NamedResourcePackCreator.named("boundary_shader", cached = true) {
             addAssetSource(path("packs/BoundaryShader"))
             packDescription = Component.literal("Shaders for rendering custom boundaries")
         }
@@ -109,7 +109,7 @@ public object ArcadeResourcePacks: ModInitializer {
      * All the langs bundled in a resource pack.
      */
     public val ARCADE_LANG_PACK: NamedResourcePackCreator by lazy {
-        NamedResourcePackCreator.named("arcade_lang_pack") {
+        NamedResourcePackCreator.named("arcade_lang_pack", cached = true) {
             addLangsFromData("arcade-commands")
             addLangsFromData("arcade-minigames")
             packIcon = path("assets/icon.png").readBytes()
@@ -5,15 +5,37 @@
 package net.casual.arcade.resources.creator
 
 import eu.pb4.polymer.resourcepack.api.ResourcePackCreator
+import net.fabricmc.loader.api.FabricLoader
+import java.nio.file.Files
 import java.nio.file.Path
-import kotlin.io.path.createDirectories
-import kotlin.io.path.exists
-import kotlin.io.path.isDirectory
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.MessageDigest
+import java.time.LocalDateTime
+import java.util.HexFormat
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+import kotlin.io.path.*
 
+/**
+ * A [ResourcePackCreator] with a name, which can be built to a directory.
+ *
+ * Packs may be cached, in which case the pack is only rebuilt
+ * when its fingerprint changes, see [named]. The fingerprint
+ * consists of the pack name, the versions of all loaded mods
+ * (which covers bundled asset sources and generated resources),
+ * and any additional inputs added with [addCacheInput].
+ *
+ * All built packs are written as deterministic zips, so the
+ * hash of a pack is stable across builds.
+ */
 public class NamedResourcePackCreator private constructor(
     private val name: String,
-    private val creator: ResourcePackCreator = ResourcePackCreator.create()
+    private val creator: ResourcePackCreator,
+    private val cached: Boolean
 ) {
+    private val inputs = ArrayList<Path>()
+
     public fun zippedName(): String {
         return if (this.name.endsWith(".zip")) this.name else "${this.name}.zip"
     }
@@ -22,19 +44,128 @@ public class NamedResourcePackCreator private constructor(
         return this.creator
     }
 
+    /**
+     * Adds an additional input to the fingerprint of a cached pack.
+     *
+     * If the path is a directory, every file within it is
+     * considered, files are compared by their size and last
+     * modified time.
+     *
+     * @param path The path of the input.
+     */
+    public fun addCacheInput(path: Path) {
+        this.inputs.add(path)
+    }
+
     public fun buildTo(path: Path) {
         if (path.exists() && !path.isDirectory()) {
             throw IllegalArgumentException("Must specify directory when building NamedResourcePack")
         }
         path.createDirectories()
-        this.creator.build(path.resolve(this.zippedName()))
+        val output = path.resolve(this.zippedName())
+        val marker = path.resolve("${this.zippedName()}.fingerprint")
+        val useCache = this.cached && !FabricLoader.getInstance().isDevelopmentEnvironment
+
+        val fingerprint = if (useCache) this.fingerprint() else null
+        if (fingerprint != null && output.isRegularFile() && marker.isRegularFile() && marker.readText() == fingerprint) {
+            return
+        }
+        marker.deleteIfExists()
+
+        val temporary = path.resolve("${this.zippedName()}.tmp")
+        try {
+            this.creator.build(temporary)
+            if (!temporary.isRegularFile()) {
+                return
+            }
+            writeDeterministic(temporary, output)
+        } finally {
+            temporary.deleteIfExists()
+        }
+
+        if (fingerprint != null) {
+            marker.writeText(fingerprint)
+        }
+    }
+
+    private fun fingerprint(): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update("$BUILD_VERSION:${this.name}\n".encodeToByteArray())
+        val mods = FabricLoader.getInstance().allMods.map { it.metadata }.sortedBy { it.id }
+        for (mod in mods) {
+            digest.update("${mod.id}@${mod.version.friendlyString}\n".encodeToByteArray())
+        }
+        for (input in this.inputs) {
+            this.fingerprint(digest, input)
+        }
+        return HexFormat.of().formatHex(digest.digest())
+    }
+
+    private fun fingerprint(digest: MessageDigest, input: Path) {
+        if (!input.exists()) {
+            digest.update("$input:missing\n".encodeToByteArray())
+            return
+        }
+        val files = if (input.isDirectory()) {
+            Files.walk(input).use { stream -> stream.filter { it.isRegularFile() }.sorted().toList() }
+        } else {
+            listOf(input)
+        }
+        for (file in files) {
+            val attributes = Files.readAttributes(file, BasicFileAttributes::class.java)
+            val modified = attributes.lastModifiedTime().toMillis()
+            digest.update("$file:${attributes.size()}:${modified}\n".encodeToByteArray())
+        }
     }
 
     public companion object {
-        public fun named(name: String, block: ResourcePackCreator.() -> Unit = {}): NamedResourcePackCreator {
+        /**
+         * This should be incremented whenever the way packs are
+         * built changes, invalidating all cached packs.
+         */
+        private const val BUILD_VERSION = 1
+
+        private val ZIP_EPOCH = LocalDateTime.of(1980, 1, 1, 0, 0)
+
+        /**
+         * Creates a named resource pack creator.
+         *
+         * If the pack is [cached] then it will only be rebuilt
+         * if its fingerprint changes, this should only be enabled
+         * if all of the pack's inputs are bundled within a mod
+         * or added with [addCacheInput].
+         * Caching is always disabled in development environments.
+         *
+         * @param name The name of the pack.
+         * @param cached Whether the built pack should be cached.
+         * @param block The block to configure the creator.
+         * @return The named resource pack creator.
+         */
+        public fun named(
+            name: String,
+            cached: Boolean = false,
+            block: ResourcePackCreator.() -> Unit = {}
+        ): NamedResourcePackCreator {
             val creator = ResourcePackCreator.create()
             creator.block()
-            return NamedResourcePackCreator(name, creator)
+            return NamedResourcePackCreator(name, creator, cached)
+        }
+
+        private fun writeDeterministic(source: Path, output: Path) {
+            ZipFile(source.toFile()).use { zip ->
+                val entries = zip.entries().toList().sortedBy { it.name }
+                ZipOutputStream(output.outputStream().buffered()).use { stream ->
+                    for (entry in entries) {
+                        val copy = ZipEntry(entry.name)
+                        copy.timeLocal = ZIP_EPOCH
+                        stream.putNextEntry(copy)
+                        if (!entry.isDirectory) {
+                            zip.getInputStream(entry).use { it.transferTo(stream) }
+                        }
+                        stream.closeEntry()
+                    }
+                }
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -9,6 +9,7 @@ import net.casual.arcade.events.GlobalEventHandler
 import net.casual.arcade.events.ListenerRegistry.Companion.register
 import net.casual.arcade.events.server.ServerTickEvent
 import net.casual.arcade.scheduler.task.Task
+import net.casual.arcade.scheduler.task.impl.RepeatingTask
 import net.casual.arcade.utils.TimeUtils.Ticks
 import net.casual.arcade.utils.time.MinecraftTimeDuration
 
@@ -87,6 +88,27 @@ public object GlobalTickedScheduler {
         this.scheduler.scheduleInLoop(delay, interval, duration, task)
     }
 
+    /**
+     * This schedules a [task] that repeats every [interval],
+     * after an initial [delay], for the given number of [repeats].
+     *
+     * @param delay The initial delay before the first run of the [task].
+     * @param interval The amount of time between each run of the [task].
+     * @param repeats The number of times to run the [task], or [RepeatingTask.INFINITE].
+     * @param task The runnable to be scheduled.
+     * @return The repeating task.
+     */
+    @JvmStatic
+    @JvmName("scheduleRepeating")
+    public fun scheduleRepeating(
+        delay: MinecraftTimeDuration,
+        interval: MinecraftTimeDuration,
+        repeats: Int,
+        task: Task
+    ): RepeatingTask {
+        return this.scheduler.scheduleRepeating(delay, interval, repeats, task)
+    }
+
     @JvmStatic
     @JvmName("temporaryScheduler")
     public fun temporaryScheduler(
@@ -5,6 +5,7 @@
 package net.casual.arcade.scheduler
 
 import net.casual.arcade.scheduler.task.Task
+import net.casual.arcade.scheduler.task.impl.RepeatingTask
 import net.casual.arcade.utils.TimeUtils.Ticks
 import net.casual.arcade.utils.time.MinecraftTimeDuration
 
@@ -26,6 +27,38 @@ public interface MinecraftScheduler {
     public fun schedule(duration: MinecraftTimeDuration, task: Task)
 
 
+    /**
+     * This schedules a [task] that repeats every [interval],
+     * after an initial [delay], for the given number of [repeats].
+     *
+     * The task is scheduled as a single entry which re-arms itself
+     * after it runs, the returned [RepeatingTask] can be used to
+     * cancel the task or to query its remaining repeats.
+     *
+     * @param delay The initial delay before the first run of the [task].
+     * @param interval The amount of time between each run of the [task].
+     * @param repeats The number of times to run the [task], or [RepeatingTask.INFINITE].
+     * @param task The task to be scheduled.
+     * @return The repeating task.
+     */
+    public fun scheduleRepeating(
+        delay: MinecraftTimeDuration,
+        interval: MinecraftTimeDuration,
+        repeats: Int,
+        task: Task
+    ): RepeatingTask {
+        val repeating = RepeatingTask.of(task, interval, repeats)
+        this.schedule(delay, object: Task {
+            override fun run() {
+                repeating.run()
+                if (repeating.isRepeating) {
+                    this@MinecraftScheduler.schedule(interval, this)
+                }
+            }
+        })
+        return repeating
+    }
+
     /**
      * This schedules a [task] in a loop with a given
      * initial [delay] and with a given [interval] between
@@ -35,6 +68,7 @@ public interface MinecraftScheduler {
      * @param interval The amount of time between each [task].
      * @param duration The total duration the loop should be running for.
      * @param task The task to be scheduled.
+     * @see scheduleRepeating
      */
     public fun scheduleInLoop(
         delay: MinecraftTimeDuration,
@@ -42,11 +76,12 @@ public interface MinecraftScheduler {
         duration: MinecraftTimeDuration,
         task: Task
     ) {
-        val total = duration + delay
-        var current = delay
-        while (current < total) {
-            this.schedule(current, task)
-            current += interval
+        if (interval.ticks <= 0) {
+            throw IllegalArgumentException("Loop interval must be positive, got $interval")
+        }
+        val repeats = (duration.ticks + interval.ticks - 1) / interval.ticks
+        if (repeats > 0) {
+            this.scheduleRepeating(delay, interval, repeats, task)
         }
     }
 
@@ -6,30 +6,37 @@ package net.casual.arcade.scheduler
 
 import com.google.gson.JsonArray
 import com.google.gson.JsonObject
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap
 import net.casual.arcade.scheduler.task.Task
 import net.casual.arcade.scheduler.task.impl.CancellableTask
+import net.casual.arcade.scheduler.task.impl.RepeatingTask
 import net.casual.arcade.scheduler.task.serialization.TaskCreationContext
 import net.casual.arcade.scheduler.task.serialization.TaskSerializationContext
 import net.casual.arcade.utils.JsonUtils.int
 import net.casual.arcade.utils.JsonUtils.objects
 import net.casual.arcade.utils.TimeUtils.Ticks
 import net.casual.arcade.utils.time.MinecraftTimeDuration
-import java.util.*
-import java.util.function.IntFunction
+import kotlin.math.max
 
 /**
  * This class is an implementation of [MinecraftScheduler] which
  * allows you to schedule [Task]s for a later time on the
  * main server thread.
  *
+ * Tasks are stored in a hierarchical timing wheel, scheduling
+ * and running a task is constant time regardless of how far in
+ * the future it is scheduled or how many tasks are pending.
+ * Tasks scheduled for the same tick are run in the order that
+ * they were scheduled.
+ *
  * @see MinecraftScheduler
  * @see GlobalTickedScheduler
  */
 public class TickedScheduler: MinecraftScheduler {
-    private val tasks: Int2ObjectMap<Queue<Task>> = Int2ObjectOpenHashMap()
+    private val heads = Array(LEVELS) { arrayOfNulls<ScheduledTask>(SLOTS) }
+    private val tails = Array(LEVELS) { arrayOfNulls<ScheduledTask>(SLOTS) }
     private var tickCount = 0
+    private var size = 0
+    private var clears = 0
 
     /**
      * This advances the scheduler by one tick.
@@ -38,10 +45,40 @@ public class TickedScheduler: MinecraftScheduler {
      * tick will be run then removed.
      */
     public fun tick() {
-        val queue = this.tasks.remove(this.tickCount++)
-        if (queue != null) {
-            queue.forEach(Runnable::run)
-            queue.clear()
+        val tick = this.tickCount
+        val slot = tick and SLOT_MASK
+        val head = this.heads[0][slot]
+        this.heads[0][slot] = null
+        this.tails[0][slot] = null
+
+        var scheduled = head
+        while (scheduled != null) {
+            scheduled.level = UNSCHEDULED
+            this.size--
+            scheduled = scheduled.next
+        }
+
+        this.tickCount++
+        this.cascade()
+
+        val clears = this.clears
+        scheduled = head
+        while (scheduled != null) {
+            val next = scheduled.next
+            scheduled.next = null
+            scheduled.previous = null
+            val task = scheduled.task
+            task.run()
+            // Repeating tasks re-use their entry rather than being re-scheduled
+            if (task is RepeatingTask && task.isRepeating) {
+                if (clears != this.clears) {
+                    task.cancel()
+                } else {
+                    scheduled.tick = tick + task.interval.ticks
+                    this.link(scheduled)
+                }
+            }
+            scheduled = next
         }
     }
 
@@ -52,8 +89,24 @@ public class TickedScheduler: MinecraftScheduler {
      * @param delta The tick delta.
      */
     public fun cancel(delta: Int = 0) {
-        val queue = this.tasks.remove(this.tickCount + delta)
-        for (task in queue) {
+        if (delta < 0) {
+            return
+        }
+        val tick = this.tickCount + delta
+        val level = this.getLevelFor(tick)
+        val slot = this.getSlotFor(tick, level)
+
+        val cancelled = ArrayList<Task>()
+        var scheduled = this.heads[level][slot]
+        while (scheduled != null) {
+            val next = scheduled.next
+            if (scheduled.tick == tick) {
+                this.unlink(scheduled)
+                cancelled.add(scheduled.task)
+            }
+            scheduled = next
+        }
+        for (task in cancelled) {
             if (task is CancellableTask) {
                 task.cancel()
             }
@@ -65,17 +118,24 @@ public class TickedScheduler: MinecraftScheduler {
      * scheduled in the scheduler.
      */
     public fun cancelAll(): Boolean {
-        if (this.tasks.isEmpty()) {
+        // Repeating tasks that are currently running must not be re-armed
+        this.clears++
+        if (this.size == 0) {
             return false
         }
-        for (ticked in this.tasks.values) {
-            for (task in ticked) {
-                if (task is CancellableTask) {
-                    task.cancel()
-                }
+        val cancelled = ArrayList<Task>(this.size)
+        this.forEachScheduled { cancelled.add(it.task) }
+        for (level in 0 ..< LEVELS) {
+            this.heads[level].fill(null)
+            this.tails[level].fill(null)
+        }
+        this.size = 0
+
+        for (task in cancelled) {
+            if (task is CancellableTask) {
+                task.cancel()
             }
         }
-        this.tasks.clear()
         return true
     }
 
@@ -87,20 +147,41 @@ public class TickedScheduler: MinecraftScheduler {
      * @param task The task to be scheduled.
      */
     override fun schedule(duration: MinecraftTimeDuration, task: Task) {
-        this.tasks.computeIfAbsent(this.tickCount + duration.ticks, IntFunction { ArrayDeque() }).add(task)
+        this.link(ScheduledTask(task, this.tickCount + max(duration.ticks, 0)))
+    }
+
+    /**
+     * This schedules a [task] that repeats every [interval],
+     * after an initial [delay], for the given number of [repeats].
+     *
+     * The task is stored as a single entry which is re-armed
+     * after each run and is serialized as a single task.
+     *
+     * @param delay The initial delay before the first run of the [task].
+     * @param interval The amount of time between each run of the [task].
+     * @param repeats The number of times to run the [task], or [RepeatingTask.INFINITE].
+     * @param task The task to be scheduled.
+     * @return The repeating task.
+     */
+    override fun scheduleRepeating(
+        delay: MinecraftTimeDuration,
+        interval: MinecraftTimeDuration,
+        repeats: Int,
+        task: Task
+    ): RepeatingTask {
+        val repeating = RepeatingTask.of(task, interval, repeats)
+        this.schedule(delay, repeating)
+        return repeating
     }
 
     public fun serialize(context: TaskSerializationContext): JsonArray {
         val tasks = JsonArray()
-        for ((tick, queue) in this.tasks) {
-            val delay = tick - this.tickCount
-            for (task in queue) {
-                val identity = context.serializeTask(task) ?: continue
-                val data = JsonObject()
-                data.addProperty("uid", identity)
-                data.addProperty("delay", delay)
-                tasks.add(data)
-            }
+        this.forEachScheduled { scheduled ->
+            val identity = context.serializeTask(scheduled.task) ?: return@forEachScheduled
+            val data = JsonObject()
+            data.addProperty("uid", identity)
+            data.addProperty("delay", scheduled.tick - this.tickCount)
+            tasks.add(data)
         }
         return tasks
     }
@@ -115,4 +196,113 @@ public class TickedScheduler: MinecraftScheduler {
             }
         }
     }
-}
\ No newline at end of file
+
+    private fun cascade() {
+        val current = this.tickCount
+        if (current and SLOT_MASK != 0) {
+            return
+        }
+        // Higher levels must cascade first as they may
+        // cascade into the slots of the lower levels
+        for (level in LEVELS - 1 downTo 1) {
+            val shift = level * SLOT_BITS
+            if (current and ((1 shl shift) - 1) != 0) {
+                continue
+            }
+            val slot = (current ushr shift) and SLOT_MASK
+            var scheduled = this.heads[level][slot]
+            this.heads[level][slot] = null
+            this.tails[level][slot] = null
+            while (scheduled != null) {
+                val next = scheduled.next
+                scheduled.next = null
+                scheduled.previous = null
+                this.size--
+                this.link(scheduled)
+                scheduled = next
+            }
+        }
+    }
+
+    private fun link(scheduled: ScheduledTask) {
+        val level = this.getLevelFor(scheduled.tick)
+        val slot = this.getSlotFor(scheduled.tick, level)
+        scheduled.level = level
+        scheduled.slot = slot
+
+        val tail = this.tails[level][slot]
+        if (tail == null) {
+            this.heads[level][slot] = scheduled
+        } else {
+            tail.next = scheduled
+            scheduled.previous = tail
+        }
+        this.tails[level][slot] = scheduled
+        this.size++
+    }
+
+    private fun unlink(scheduled: ScheduledTask) {
+        val level = scheduled.level
+        if (level == UNSCHEDULED) {
+            return
+        }
+        val slot = scheduled.slot
+        val previous = scheduled.previous
+        val next = scheduled.next
+        if (previous == null) {
+            this.heads[level][slot] = next
+        } else {
+            previous.next = next
+        }
+        if (next == null) {
+            this.tails[level][slot] = previous
+        } else {
+            next.previous = previous
+        }
+        scheduled.previous = null
+        scheduled.next = null
+        scheduled.level = UNSCHEDULED
+        this.size--
+    }
+
+    private inline fun forEachScheduled(consumer: (ScheduledTask) -> Unit) {
+        for (level in 0 ..< LEVELS) {
+            for (head in this.heads[level]) {
+                var scheduled = head
+                while (scheduled != null) {
+                    consumer(scheduled)
+                    scheduled = scheduled.next
+                }
+            }
+        }
+    }
+
+    private fun getLevelFor(tick: Int): Int {
+        // The level is the highest group of bits that differs from the current tick
+        val difference = tick xor this.tickCount
+        if (difference == 0) {
+            return 0
+        }
+        return (Int.SIZE_BITS - 1 - Integer.numberOfLeadingZeros(difference)) / SLOT_BITS
+    }
+
+    private fun getSlotFor(tick: Int, level: Int): Int {
+        return (tick ushr (level * SLOT_BITS)) and SLOT_MASK
+    }
+
+    private class ScheduledTask(val task: Task, var tick: Int) {
+        var level = UNSCHEDULED
+        var slot = 0
+        var previous: ScheduledTask? = null
+        var next: ScheduledTask? = null
+    }
+
+    private companion object {
+        const val SLOT_BITS = 6
+        const val SLOTS = 1 shl SLOT_BITS
+        const val SLOT_MASK = SLOTS - 1
+        const val LEVELS = (Int.SIZE_BITS + SLOT_BITS - 1) / SLOT_BITS
+
+        const val UNSCHEDULED = -1
+    }
+}
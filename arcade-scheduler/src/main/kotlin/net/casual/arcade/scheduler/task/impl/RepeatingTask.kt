@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.scheduler.task.impl
+
+import com.google.gson.JsonArray
+import com.google.gson.JsonObject
+import net.casual.arcade.scheduler.MinecraftScheduler
+import net.casual.arcade.scheduler.TickedScheduler
+import net.casual.arcade.scheduler.task.SavableTask
+import net.casual.arcade.scheduler.task.Task
+import net.casual.arcade.scheduler.task.serialization.TaskCreationContext
+import net.casual.arcade.scheduler.task.serialization.TaskFactory
+import net.casual.arcade.scheduler.task.serialization.TaskSerializationContext
+import net.casual.arcade.utils.JsonUtils
+import net.casual.arcade.utils.JsonUtils.boolean
+import net.casual.arcade.utils.JsonUtils.int
+import net.casual.arcade.utils.JsonUtils.ints
+import net.casual.arcade.utils.ResourceUtils
+import net.casual.arcade.utils.TimeUtils.Ticks
+import net.casual.arcade.utils.time.MinecraftTimeDuration
+import net.minecraft.resources.ResourceLocation
+import org.jetbrains.annotations.ApiStatus.Internal
+import java.io.Serializable
+
+/**
+ * This extension of the [CancellableTask] is a task
+ * that is scheduled once and re-arms itself every
+ * [interval] after it runs.
+ *
+ * The task will stop repeating once it has run the
+ * given number of times, see [remaining], or if it
+ * is cancelled.
+ *
+ * @see MinecraftScheduler.scheduleRepeating
+ * @see CancellableTask
+ */
+public sealed class RepeatingTask(
+    wrapped: Task,
+    /**
+     * The interval between each run of the task.
+     */
+    public val interval: MinecraftTimeDuration,
+    remaining: Int
+): CancellableTask(wrapped) {
+    /**
+     * The number of times the task has left to run,
+     * this will be [INFINITE] if the task repeats forever.
+     */
+    public var remaining: Int = remaining
+        private set
+
+    /**
+     * Whether the task should be re-armed.
+     */
+    public val isRepeating: Boolean
+        get() = !this.isCancelled && this.remaining != 0
+
+    init {
+        if (this.interval.ticks <= 0) {
+            throw IllegalArgumentException("Repeating task interval must be positive, got ${this.interval}")
+        }
+    }
+
+    /**
+     * This will run the wrapped task if the task has not
+     * been cancelled and has not exhausted its repeats.
+     */
+    override fun run() {
+        if (this.isRepeating) {
+            if (this.remaining > 0) {
+                this.remaining--
+            }
+            this.wrapped.run()
+        }
+    }
+
+    private class Default(
+        wrapped: Task,
+        interval: MinecraftTimeDuration,
+        remaining: Int
+    ): RepeatingTask(wrapped, interval, remaining)
+
+    @Internal
+    public class Savable(
+        wrapped: Task,
+        interval: MinecraftTimeDuration,
+        remaining: Int
+    ): RepeatingTask(wrapped, interval, remaining), SavableTask {
+        override val id: ResourceLocation = Companion.id
+
+        override fun serialize(context: TaskSerializationContext): JsonObject {
+            val data = JsonObject()
+            val wrappedRef = context.serializeTask(this.wrapped)
+            if (wrappedRef == null) {
+                val message = "Repeating\$Savable task failed to write wrapped task ${this.wrapped::class.simpleName}"
+                throw IllegalStateException(message)
+            }
+            data.addProperty("wrapped", wrappedRef)
+            data.addProperty("interval", this.interval.ticks)
+            data.addProperty("remaining", this.remaining)
+            val onCancel = JsonArray()
+            for (cancel in this.cancelled) {
+                val onCancelRef = context.serializeTask(cancel)
+                if (onCancelRef == null) {
+                    val message = "Repeating\$Savable task failed to write on_cancel task ${cancel::class.simpleName}"
+                    throw IllegalStateException(message)
+                }
+                onCancel.add(onCancelRef)
+            }
+            data.add("on_cancel", onCancel)
+            data.addProperty("is_cancelled", this.isCancelled)
+            return data
+        }
+
+        @Internal
+        public companion object: TaskFactory {
+            override val id: ResourceLocation = ResourceUtils.arcade("internal_savable_repeating")
+
+            override fun create(context: TaskCreationContext): Task {
+                val data = context.data
+                val wrappedData = data.int("wrapped")
+                val wrapped = context.createTask(wrappedData)
+                if (wrapped == null) {
+                    val message = "Repeating\$Savable task failed to create wrapped task with data: ${JsonUtils.GSON.toJson(wrappedData)}"
+                    throw IllegalStateException(message)
+                }
+
+                val savable = Savable(wrapped, data.int("interval").Ticks, data.int("remaining"))
+                if (data.boolean("is_cancelled")) {
+                    savable.cancel()
+                }
+
+                val onCancelArray = data.getAsJsonArray("on_cancel")
+                for (onCancelData in onCancelArray.ints()) {
+                    val task = context.createTask(onCancelData)
+                    if (task == null) {
+                        val message = "Repeating\$Savable task failed to create on_cancel task with data ${JsonUtils.GSON.toJson(onCancelData)}"
+                        throw IllegalStateException(message)
+                    }
+                    savable.ifCancelled(task)
+                }
+                return savable
+            }
+        }
+    }
+
+    public companion object {
+        /**
+         * The number of repeats for a task that should repeat
+         * until it is cancelled.
+         */
+        public const val INFINITE: Int = -1
+
+        /**
+         * This method creates a repeating task with a given runnable.
+         *
+         * If given a savable task this will save the savable task within
+         * the repeating task which will also be savable.
+         *
+         * Schedulers that support repeating tasks natively, for example,
+         * [TickedScheduler], will re-arm the task after each run,
+         * see [MinecraftScheduler.scheduleRepeating].
+         *
+         * @param task The task to wrap in a repeating task.
+         * @param interval The interval between each run of the task.
+         * @param repeats The number of times to run the task, or [INFINITE].
+         * @return The repeating task.
+         */
+        @JvmStatic
+        public fun of(task: Task, interval: MinecraftTimeDuration, repeats: Int): RepeatingTask {
+            return if (task is SavableTask || task is Serializable) {
+                Savable(task, interval, repeats)
+            } else {
+                Default(task, interval, repeats)
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ package net.casual.arcade.scheduler.task.serialization
 import net.casual.arcade.scheduler.task.SavableTask
 import net.casual.arcade.scheduler.task.Task
 import net.casual.arcade.scheduler.task.impl.CancellableTask
+import net.casual.arcade.scheduler.task.impl.RepeatingTask
 import net.minecraft.core.Registry
 import net.minecraft.resources.ResourceLocation
 
@@ -35,6 +36,7 @@ public interface TaskFactory {
     public companion object {
         public fun bootstrap(registry: Registry<TaskFactory>) {
             Registry.register(registry, CancellableTask.Savable.id, CancellableTask.Savable)
+            Registry.register(registry, RepeatingTask.Savable.id, RepeatingTask.Savable)
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.scheduler
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap
+import net.casual.arcade.scheduler.task.Task
+import net.casual.arcade.scheduler.task.impl.CancellableTask
+import net.casual.arcade.utils.TimeUtils.Ticks
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.*
+import java.util.function.IntFunction
+
+/**
+ * Compares the timing wheel against the previous map of queues,
+ * run with `./gradlew :arcade-scheduler:benchmark`.
+ */
+@Tag("benchmark")
+class TickedSchedulerBenchmark {
+    @ParameterizedTest
+    @ValueSource(ints = [10_000, 100_000, 1_000_000])
+    fun `compare schedulers`(pending: Int) {
+        // Tasks are spread over roughly two hours of ticks
+        val random = Random(pending.toLong())
+        val delays = IntArray(pending) { random.nextInt(SPREAD) }
+
+        // Warm up both implementations first
+        this.run(WheelScheduler(), delays)
+        this.run(MapScheduler(), delays)
+
+        val wheel = this.run(WheelScheduler(), delays)
+        val map = this.run(MapScheduler(), delays)
+        println("pending=$pending")
+        println("  wheel: $wheel")
+        println("  map:   $map")
+    }
+
+    private fun run(scheduler: BenchmarkScheduler, delays: IntArray): Result {
+        var counter = 0
+        val task = Task { counter++ }
+
+        var start = System.nanoTime()
+        for (delay in delays) {
+            scheduler.schedule(delay, task)
+        }
+        val schedule = System.nanoTime() - start
+
+        start = System.nanoTime()
+        for (delay in 0 ..< SPREAD / 2) {
+            scheduler.tick()
+        }
+        val tick = System.nanoTime() - start
+
+        start = System.nanoTime()
+        for (delay in 0 ..< SPREAD / 2) {
+            scheduler.cancel(delay)
+        }
+        val cancel = System.nanoTime() - start
+        return Result(delays.size, schedule, tick, cancel)
+    }
+
+    private class Result(val tasks: Int, val schedule: Long, val tick: Long, val cancel: Long) {
+        override fun toString(): String {
+            return "schedule %.1f Mops/s, tick %.1f ms, cancel %.1f ms".format(
+                Locale.ROOT,
+                this.tasks * 1_000.0 / this.schedule,
+                this.tick / 1_000_000.0,
+                this.cancel / 1_000_000.0
+            )
+        }
+    }
+
+    private interface BenchmarkScheduler {
+        fun schedule(delay: Int, task: Task)
+
+        fun tick()
+
+        fun cancel(delta: Int)
+    }
+
+    private class WheelScheduler: BenchmarkScheduler {
+        private val scheduler = TickedScheduler()
+
+        override fun schedule(delay: Int, task: Task) {
+            this.scheduler.schedule(delay.Ticks, CancellableTask.of(task))
+        }
+
+        override fun tick() {
+            this.scheduler.tick()
+        }
+
+        override fun cancel(delta: Int) {
+            this.scheduler.cancel(delta)
+        }
+    }
+
+    // The previous implementation of the TickedScheduler
+    private class MapScheduler: BenchmarkScheduler {
+        private val tasks = Int2ObjectOpenHashMap<Queue<Task>>()
+        private var tickCount = 0
+
+        override fun schedule(delay: Int, task: Task) {
+            val cancellable = CancellableTask.of(task)
+            this.tasks.computeIfAbsent(this.tickCount + delay, IntFunction { ArrayDeque() }).add(cancellable)
+        }
+
+        override fun tick() {
+            val queue = this.tasks.remove(this.tickCount++)
+            if (queue != null) {
+                queue.forEach(Runnable::run)
+                queue.clear()
+            }
+        }
+
+        override fun cancel(delta: Int) {
+            val queue = this.tasks.remove(this.tickCount + delta) ?: return
+            for (task in queue) {
+                if (task is CancellableTask) {
+                    task.cancel()
+                }
+            }
+        }
+    }
+
+    private companion object {
+        const val SPREAD = 2 * 60 * 60 * 20
+    }
+}
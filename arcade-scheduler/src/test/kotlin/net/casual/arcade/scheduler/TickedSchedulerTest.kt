@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2025 senseiwells
+ * Licensed under the MIT License. See LICENSE file in the project root for details.
+ */
+package net.casual.arcade.scheduler
+
+import net.casual.arcade.scheduler.task.impl.CancellableTask
+import net.casual.arcade.scheduler.task.impl.RepeatingTask
+import net.casual.arcade.utils.TimeUtils.Ticks
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+
+class TickedSchedulerTest {
+    private val scheduler = TickedScheduler()
+    private var ticks = 0
+
+    @ParameterizedTest
+    @ValueSource(ints = [
+        0, 1, 63, 64, 65,
+        4095, 4096, 4097,
+        262_143, 262_144, 262_145,
+        16_777_215, 16_777_216, 16_777_217
+    ])
+    fun `runs tasks across level boundaries`(delay: Int) {
+        val runs = ArrayList<Int>()
+        this.scheduler.schedule(delay.Ticks) { runs.add(this.ticks) }
+        this.tickUntil(delay + 1)
+        assertEquals(listOf(delay), runs)
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = [1, 54, 63, 64, 4086, 4095, 4096, 262_134, 262_144])
+    fun `runs tasks across level boundaries from an offset`(delay: Int) {
+        // Scheduling from a tick that isn't aligned to a slot
+        this.tickUntil(10)
+        val runs = ArrayList<Int>()
+        this.scheduler.schedule(delay.Ticks) { runs.add(this.ticks) }
+        this.tickUntil(10 + delay + 1)
+        assertEquals(listOf(10 + delay), runs)
+    }
+
+    @Test
+    fun `runs tasks in the same tick in scheduling order`() {
+        val order = ArrayList<String>()
+        this.scheduler.schedule(5000.Ticks) { order.add("a") }
+        this.tickUntil(1000)
+        this.scheduler.schedule(4000.Ticks) { order.add("b") }
+        this.tickUntil(4900)
+        this.scheduler.schedule(100.Ticks) { order.add("c") }
+        this.tickUntil(4999)
+        this.scheduler.schedule(1.Ticks) { order.add("d") }
+        this.scheduler.schedule(1.Ticks) { order.add("e") }
+        this.tickUntil(5001)
+        assertEquals(listOf("a", "b", "c", "d", "e"), order)
+    }
+
+    @Test
+    fun `runs tasks scheduled during a tick on the next tick`() {
+        val runs = ArrayList<Int>()
+        this.scheduler.schedule(3.Ticks) {
+            runs.add(this.ticks)
+            this.scheduler.schedule(0.Ticks) { runs.add(this.ticks) }
+        }
+        this.tickUntil(10)
+        assertEquals(listOf(3, 4), runs)
+    }
+
+    @Test
+    fun `re-arms repeating tasks at the interval`() {
+        val runs = ArrayList<Int>()
+        val task = this.scheduler.scheduleRepeating(5.Ticks, 64.Ticks, 4) { runs.add(this.ticks) }
+        this.tickUntil(1000)
+        assertEquals(listOf(5, 69, 133, 197), runs)
+        assertFalse(task.isRepeating)
+    }
+
+    @Test
+    fun `re-arms infinite repeating tasks across cascades`() {
+        val runs = ArrayList<Int>()
+        val task = this.scheduler.scheduleRepeating(4095.Ticks, 4096.Ticks, RepeatingTask.INFINITE) {
+            runs.add(this.ticks)
+        }
+        this.tickUntil(4096 * 4)
+        assertEquals(listOf(4095, 8191, 12287, 16383), runs)
+        task.cancel()
+        this.tickUntil(4096 * 6)
+        assertEquals(4, runs.size)
+    }
+
+    @Test
+    fun `cancels tasks with a delta`() {
+        val runs = ArrayList<String>()
+        var cancelled = 0
+        val task = CancellableTask.of { runs.add("cancelled") }.ifCancelled { cancelled++ }
+        this.scheduler.schedule(5000.Ticks, task)
+        this.scheduler.schedule(5001.Ticks) { runs.add("kept") }
+        this.scheduler.cancel(5000)
+        // Cancelling is idempotent
+        this.scheduler.cancel(5000)
+        this.scheduler.cancel(-1)
+        this.scheduler.cancel(123)
+        this.tickUntil(6000)
+        assertEquals(listOf("kept"), runs)
+        assertEquals(1, cancelled)
+        assertTrue(task.isCancelled)
+    }
+
+    @Test
+    fun `cancels all tasks`() {
+        assertFalse(this.scheduler.cancelAll())
+        val runs = ArrayList<Int>()
+        var cancelled = 0
+        for (delay in listOf(0, 63, 64, 4096, 300_000)) {
+            this.scheduler.schedule(delay.Ticks, CancellableTask.of { runs.add(delay) }.ifCancelled { cancelled++ })
+        }
+        assertTrue(this.scheduler.cancelAll())
+        assertFalse(this.scheduler.cancelAll())
+        this.tickUntil(300_001)
+        assertEquals(emptyList<Int>(), runs)
+        assertEquals(5, cancelled)
+    }
+
+    @Test
+    fun `stops repeating tasks that cancel all`() {
+        var runs = 0
+        val task = this.scheduler.scheduleRepeating(0.Ticks, 1.Ticks, RepeatingTask.INFINITE) {
+            runs++
+            this.scheduler.cancelAll()
+        }
+        this.tickUntil(10)
+        assertEquals(1, runs)
+        assertTrue(task.isCancelled)
+    }
+
+    private fun tickUntil(tick: Int) {
+        while (this.ticks < tick) {
+            this.scheduler.tick()
+            this.ticks++
+        }
+    }
+}
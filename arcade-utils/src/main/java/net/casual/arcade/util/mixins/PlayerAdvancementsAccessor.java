@@ -24,4 +24,7 @@ public interface PlayerAdvancementsAccessor {
 
 	@Invoker("markForVisibilityUpdate")
 	void updateVisibility(AdvancementHolder advancement);
+
+	@Invoker("unregisterListeners")
+	void unregisterListeners(AdvancementHolder advancement);
 }
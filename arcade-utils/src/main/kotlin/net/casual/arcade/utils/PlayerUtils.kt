@@ -325,6 +325,51 @@ public object PlayerUtils {
         (this.advancements as PlayerAdvancementsAccessor).progress.remove(advancement)
     }
 
+    /**
+     * Silently grants all the given advancements to the player.
+     *
+     * The changes are flushed to the player in a single
+     * update packet at the end of the player's tick.
+     *
+     * @param advancements The advancements to grant.
+     */
+    @JvmStatic
+    public fun ServerPlayer.grantAdvancementsSilently(advancements: Iterable<AdvancementHolder>) {
+        for (advancement in advancements) {
+            this.grantAdvancementSilently(advancement)
+        }
+    }
+
+    /**
+     * Revokes all the given advancements from the player, removing
+     * their progress entirely.
+     *
+     * Unlike [revokeAdvancement] this does not start progress for
+     * advancements the player has no progress for, and does not
+     * re-register criteria listeners for each revoked criterion.
+     * The changes are flushed to the player in a single update
+     * packet at the end of the player's tick.
+     *
+     * @param advancements The advancements to revoke.
+     */
+    @JvmStatic
+    public fun ServerPlayer.revokeAdvancements(advancements: Iterable<AdvancementHolder>) {
+        val accessor = this.advancements as PlayerAdvancementsAccessor
+        val progresses = accessor.progress
+        for (advancement in advancements) {
+            val progress = progresses[advancement] ?: continue
+            accessor.unregisterListeners(advancement)
+            if (progress.hasProgress()) {
+                for (string in progress.completedCriteria.toList()) {
+                    progress.revokeProgress(string)
+                }
+                accessor.progressChanged.add(advancement)
+                accessor.updateVisibility(advancement)
+            }
+            progresses.remove(advancement)
+        }
+    }
+
     @JvmStatic
     public fun ServerPlayer.revokeAllAdvancements() {
         for (advancement in this.levelServer.advancements.allAdvancements) {
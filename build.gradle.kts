@@ -48,6 +48,9 @@ allprojects {
         modImplementation(libs.fabric.loader)
         modImplementation(libs.fabric.kotlin)
         modRuntimeOnly(libs.fabric.api)
+
+        testImplementation(libs.junit.jupiter)
+        testRuntimeOnly(libs.junit.launcher)
     }
 
     kotlin {
@@ -78,6 +81,23 @@ allprojects {
         jar {
             from("LICENSE")
         }
+
+        test {
+            useJUnitPlatform {
+                excludeTags("benchmark")
+            }
+        }
+
+        register<Test>("benchmark") {
+            group = "verification"
+            description = "Runs the benchmarks."
+            testClassesDirs = sourceSets.test.get().output.classesDirs
+            classpath = sourceSets.test.get().runtimeClasspath
+            useJUnitPlatform {
+                includeTags("benchmark")
+            }
+            testLogging.showStandardStreams = true
+        }
     }
 
     publishing {